@@ -0,0 +1,24 @@
+package com.finance.manager.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AlertConfig {
+    
+    // Sends budget alerts and heartbeats off the request and scheduler threads. A client that stops
+    // reading can hold a sender until the container's write timeout, so there are several; idle ones exit
+    @Bean
+    public ThreadPoolTaskExecutor alertExecutor(@Value("${finance.budgets.alerts.senders:8}") int senders,
+                                                @Value("${finance.budgets.alerts.queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(senders);
+        executor.setMaxPoolSize(senders);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("alerts-");
+        return executor;
+    }
+}
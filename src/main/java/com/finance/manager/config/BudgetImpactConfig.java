@@ -0,0 +1,22 @@
+package com.finance.manager.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class BudgetImpactConfig {
+    
+    // Drains queued budget impacts, one user at a time per worker
+    @Bean
+    public ThreadPoolTaskExecutor budgetImpactExecutor(@Value("${finance.budgets.impact.workers:2}") int workers,
+                                                       @Value("${finance.budgets.impact.queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("budget-impact-");
+        return executor;
+    }
+}
@@ -1,6 +1,7 @@
 package com.finance.manager.config;
 
 import com.finance.manager.entity.User;
+import com.finance.manager.service.MonthlyRollupService;
 import com.finance.manager.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
@@ -11,6 +12,9 @@ public class DataInitializer implements CommandLineRunner {
 
     @Autowired
     private UserService userService;
+    
+    @Autowired
+    private MonthlyRollupService monthlyRollupService;
 
     @Override
     public void run(String... args) throws Exception {
@@ -25,5 +29,11 @@ public class DataInitializer implements CommandLineRunner {
             );
             System.out.println("Created default user: username='user', password='password'");
         }
+        
+        // Populate monthly rollups for databases that predate the rollup table
+        if (monthlyRollupService.needsBackfill()) {
+            monthlyRollupService.rebuildAll();
+            System.out.println("Rebuilt monthly transaction rollups");
+        }
     }
 }
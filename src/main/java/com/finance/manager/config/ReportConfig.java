@@ -0,0 +1,29 @@
+package com.finance.manager.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+@Configuration
+public class ReportConfig {
+
+    // Aggregates report partitions; kept apart from the common pool since its tasks block on JDBC.
+    // Each worker holds a connection while its query runs, so at most half the pool goes to reports.
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool reportPool(
+            @Value("${finance.reports.parallelism:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int parallelism,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("finance.reports.parallelism must be at least 1");
+        }
+        int workers = Math.min(parallelism, Math.max(1, connectionPoolSize / 2));
+        return new ForkJoinPool(workers, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("report-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+}
@@ -1,20 +1,24 @@
 package com.finance.manager.controller;
 
+import com.finance.manager.dto.TransactionFilter;
 import com.finance.manager.entity.Budget;
 import com.finance.manager.entity.Category;
 import com.finance.manager.entity.Transaction;
 import com.finance.manager.entity.User;
+import com.finance.manager.security.CurrentUser;
+import com.finance.manager.service.BudgetAlertBroadcaster;
+import com.finance.manager.service.BudgetImpactQueue;
 import com.finance.manager.service.BudgetService;
 import com.finance.manager.service.CategoryService;
 import com.finance.manager.service.TransactionService;
-import com.finance.manager.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.security.core.Authentication;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import jakarta.validation.Valid;
@@ -37,12 +41,14 @@ public class BudgetController {
     private TransactionService transactionService;
     
     @Autowired
-    private UserService userService;
+    private BudgetAlertBroadcaster budgetAlertBroadcaster;
+    
+    @Autowired
+    private BudgetImpactQueue budgetImpactQueue;
     
     @GetMapping
-    public String listBudgets(Authentication authentication, Model model) {
-        User user = getCurrentUser(authentication);
-        
+    public String listBudgets(@CurrentUser User user, Model model) {
+        boolean budgetAmountsCurrent = budgetImpactQueue.catchUp(user.getId());
         List<Budget> activeBudgets = budgetService.findByUserAndActive(user, true);
         List<Budget> inactiveBudgets = budgetService.findByUserAndActive(user, false);
         List<Budget> overBudgets = budgetService.getOverBudgets(user);
@@ -58,13 +64,13 @@ public class BudgetController {
         model.addAttribute("totalBudgetAmount", totalBudgetAmount);
         model.addAttribute("totalSpentAmount", totalSpentAmount);
         model.addAttribute("overBudgetCount", overBudgetCount);
+        model.addAttribute("budgetAmountsStale", !budgetAmountsCurrent);
         
         return "budgets/list";
     }
     
     @GetMapping("/new")
-    public String showCreateForm(Model model, Authentication authentication) {
-        User user = getCurrentUser(authentication);
+    public String showCreateForm(Model model, @CurrentUser User user) {
         List<Category> categories = categoryService.findByUserAndType(user, Category.CategoryType.EXPENSE);
         
         Budget budget = new Budget();
@@ -83,12 +89,10 @@ public class BudgetController {
     public String createBudget(
             @Valid @ModelAttribute Budget budget,
             BindingResult result,
-            Authentication authentication,
+            @CurrentUser User user,
             Model model,
             RedirectAttributes redirectAttributes) {
         
-        User user = getCurrentUser(authentication);
-        
         if (result.hasErrors()) {
             List<Category> categories = categoryService.findByUserAndType(user, Category.CategoryType.EXPENSE);
             model.addAttribute("categories", categories);
@@ -114,7 +118,8 @@ public class BudgetController {
                 budget.getPeriod(),
                 user,
                 budget.getCategory(),
-                budget.getDescription()
+                budget.getDescription(),
+                budget.getAlertThreshold()
             );
             
             redirectAttributes.addFlashAttribute("successMessage", "Budget created successfully!");
@@ -128,33 +133,35 @@ public class BudgetController {
         }
     }
     
+    // Server-sent stream of threshold crossings of the current user's budgets
+    @GetMapping(path = "/alerts", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter alerts(@CurrentUser User user) {
+        return budgetAlertBroadcaster.subscribe(user.getId());
+    }
+    
     @GetMapping("/{id}")
-    public String viewBudget(@PathVariable Long id, Model model, Authentication authentication) {
-        User user = getCurrentUser(authentication);
+    public String viewBudget(@PathVariable Long id, Model model, @CurrentUser User user) {
+        boolean budgetAmountsCurrent = budgetImpactQueue.catchUp(user.getId());
         Optional<Budget> budget = budgetService.findById(id);
         
         if (budget.isEmpty() || !budget.get().getUser().getId().equals(user.getId())) {
             return "redirect:/budgets";
         }
         
-        // Update spent amount to ensure accuracy
-        budgetService.updateBudgetSpentAmount(budget.get());
-        
-        // Get recent transactions for this category (last 10)
-        List<Transaction> recentTransactions = transactionService.findByUserAndCategory(user, budget.get().getCategory())
-                .stream()
-                .sorted((t1, t2) -> t2.getDate().compareTo(t1.getDate()))
-                .limit(10)
-                .collect(java.util.stream.Collectors.toList());
+        // Spent amount is kept current by the transaction write path or the caught-up impact queue
+        TransactionFilter filter = new TransactionFilter(budget.get().getStartDate(), budget.get().getEndDate(),
+                budget.get().getCategory().getId(), Transaction.TransactionType.EXPENSE, null, null, null);
+        List<Transaction> recentTransactions = transactionService.findLatestByFilter(user, filter, 10);
         
         model.addAttribute("budget", budget.get());
         model.addAttribute("recentTransactions", recentTransactions);
+        model.addAttribute("budgetAmountsStale", !budgetAmountsCurrent);
         return "budgets/view";
     }
     
     @GetMapping("/{id}/edit")
-    public String showEditForm(@PathVariable Long id, Model model, Authentication authentication) {
-        User user = getCurrentUser(authentication);
+    public String showEditForm(@PathVariable Long id, Model model, @CurrentUser User user) {
         Optional<Budget> budget = budgetService.findById(id);
         
         if (budget.isEmpty() || !budget.get().getUser().getId().equals(user.getId())) {
@@ -175,12 +182,10 @@ public class BudgetController {
             @PathVariable Long id,
             @Valid @ModelAttribute Budget budget,
             BindingResult result,
-            Authentication authentication,
+            @CurrentUser User user,
             Model model,
             RedirectAttributes redirectAttributes) {
         
-        User user = getCurrentUser(authentication);
-        
         if (result.hasErrors()) {
             List<Category> categories = categoryService.findByUserAndType(user, Category.CategoryType.EXPENSE);
             model.addAttribute("categories", categories);
@@ -218,10 +223,9 @@ public class BudgetController {
     @PostMapping("/{id}/delete")
     public String deleteBudget(
             @PathVariable Long id,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes) {
         
-        User user = getCurrentUser(authentication);
         Optional<Budget> budget = budgetService.findById(id);
         
         if (budget.isEmpty() || !budget.get().getUser().getId().equals(user.getId())) {
@@ -241,10 +245,9 @@ public class BudgetController {
     @PostMapping("/{id}/deactivate")
     public String deactivateBudget(
             @PathVariable Long id,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes) {
         
-        User user = getCurrentUser(authentication);
         Optional<Budget> budget = budgetService.findById(id);
         
         if (budget.isEmpty() || !budget.get().getUser().getId().equals(user.getId())) {
@@ -262,9 +265,7 @@ public class BudgetController {
     }
     
     @PostMapping("/cleanup-expired")
-    public String cleanupExpiredBudgets(Authentication authentication, RedirectAttributes redirectAttributes) {
-        User user = getCurrentUser(authentication);
-        
+    public String cleanupExpiredBudgets(@CurrentUser User user, RedirectAttributes redirectAttributes) {
         try {
             budgetService.deactivateExpiredBudgets(user);
             redirectAttributes.addFlashAttribute("successMessage", "Expired budgets deactivated successfully!");
@@ -274,9 +275,4 @@ public class BudgetController {
         
         return "redirect:/budgets";
     }
-    
-    private User getCurrentUser(Authentication authentication) {
-        return userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
 }
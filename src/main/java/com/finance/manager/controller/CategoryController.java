@@ -1,15 +1,15 @@
 package com.finance.manager.controller;
 
+import com.finance.manager.dto.CategoryStats;
 import com.finance.manager.entity.Category;
 import com.finance.manager.entity.User;
 import com.finance.manager.entity.Transaction;
 import com.finance.manager.entity.Budget;
+import com.finance.manager.security.CurrentUser;
 import com.finance.manager.service.CategoryService;
-import com.finance.manager.service.UserService;
-import com.finance.manager.service.TransactionService;
+import com.finance.manager.service.CategoryStatsService;
 import com.finance.manager.service.BudgetService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -17,10 +17,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import jakarta.validation.Valid;
-import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
-import java.math.BigDecimal;
 
 @Controller
 @RequestMapping("/categories")
@@ -30,18 +28,13 @@ public class CategoryController {
     private CategoryService categoryService;
     
     @Autowired
-    private UserService userService;
-    
-    @Autowired
-    private TransactionService transactionService;
+    private CategoryStatsService categoryStatsService;
     
     @Autowired
     private BudgetService budgetService;
     
     @GetMapping
-    public String listCategories(Authentication authentication, Model model) {
-        User user = getCurrentUser(authentication);
-        
+    public String listCategories(@CurrentUser User user, Model model) {
         List<Category> incomeCategories = categoryService.findByUserAndType(user, Category.CategoryType.INCOME);
         List<Category> expenseCategories = categoryService.findByUserAndType(user, Category.CategoryType.EXPENSE);
         
@@ -62,12 +55,10 @@ public class CategoryController {
     public String createCategory(
             @Valid @ModelAttribute Category category,
             BindingResult result,
-            Authentication authentication,
+            @CurrentUser User user,
             Model model,
             RedirectAttributes redirectAttributes) {
         
-        User user = getCurrentUser(authentication);
-        
         if (result.hasErrors()) {
             model.addAttribute("categoryTypes", Category.CategoryType.values());
             return "categories/form";
@@ -91,8 +82,7 @@ public class CategoryController {
     }
     
     @GetMapping("/{id}")
-    public String viewCategory(@PathVariable Long id, Model model, Authentication authentication) {
-        User user = getCurrentUser(authentication);
+    public String viewCategory(@PathVariable Long id, Model model, @CurrentUser User user) {
         Optional<Category> categoryOpt = categoryService.findById(id);
         
         if (categoryOpt.isEmpty() || !categoryOpt.get().getUser().getId().equals(user.getId())) {
@@ -101,27 +91,9 @@ public class CategoryController {
         
         Category category = categoryOpt.get();
         
-        // Get transactions for this category
-        List<Transaction> allTransactions = transactionService.findByUserAndCategory(user, category);
-        List<Transaction> recentTransactions = allTransactions.stream()
-                .sorted((t1, t2) -> t2.getDate().compareTo(t1.getDate()))
-                .limit(10)
-                .toList();
-        
-        // Calculate statistics
-        long totalTransactions = allTransactions.size();
-        LocalDate thisMonthStart = LocalDate.now().withDayOfMonth(1);
-        long transactionsThisMonth = allTransactions.stream()
-                .filter(t -> !t.getDate().isBefore(thisMonthStart))
-                .count();
-        
-        BigDecimal totalAmount = allTransactions.stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        BigDecimal averageAmount = totalTransactions > 0 ? 
-                totalAmount.divide(BigDecimal.valueOf(totalTransactions), 2, BigDecimal.ROUND_HALF_UP) : 
-                BigDecimal.ZERO;
+        // Aggregates and the latest rows come from bounded queries rather than the full history
+        CategoryStats stats = categoryStatsService.getStats(user, category);
+        List<Transaction> recentTransactions = categoryStatsService.getRecentTransactions(user, category);
         
         // Get active budgets for this category
         List<Budget> activeBudgets = budgetService.findByUserAndCategory(user, category).stream()
@@ -130,18 +102,17 @@ public class CategoryController {
         
         model.addAttribute("category", category);
         model.addAttribute("recentTransactions", recentTransactions);
-        model.addAttribute("totalTransactions", totalTransactions);
-        model.addAttribute("transactionsThisMonth", transactionsThisMonth);
-        model.addAttribute("totalAmount", totalAmount);
-        model.addAttribute("averageAmount", averageAmount);
+        model.addAttribute("totalTransactions", stats.transactionCount());
+        model.addAttribute("transactionsThisMonth", stats.transactionsThisMonth());
+        model.addAttribute("totalAmount", stats.totalAmount());
+        model.addAttribute("averageAmount", stats.averageAmount());
         model.addAttribute("activeBudgets", activeBudgets);
         
         return "categories/view";
     }
     
     @GetMapping("/{id}/edit")
-    public String showEditForm(@PathVariable Long id, Model model, Authentication authentication) {
-        User user = getCurrentUser(authentication);
+    public String showEditForm(@PathVariable Long id, Model model, @CurrentUser User user) {
         Optional<Category> category = categoryService.findById(id);
         
         if (category.isEmpty() || !category.get().getUser().getId().equals(user.getId())) {
@@ -159,12 +130,10 @@ public class CategoryController {
             @PathVariable Long id,
             @Valid @ModelAttribute Category category,
             BindingResult result,
-            Authentication authentication,
+            @CurrentUser User user,
             Model model,
             RedirectAttributes redirectAttributes) {
         
-        User user = getCurrentUser(authentication);
-        
         if (result.hasErrors()) {
             model.addAttribute("categoryTypes", Category.CategoryType.values());
             return "categories/form";
@@ -189,10 +158,9 @@ public class CategoryController {
     @PostMapping("/{id}/delete")
     public String deleteCategory(
             @PathVariable Long id,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes) {
         
-        User user = getCurrentUser(authentication);
         Optional<Category> category = categoryService.findById(id);
         
         if (category.isEmpty() || !category.get().getUser().getId().equals(user.getId())) {
@@ -210,9 +178,7 @@ public class CategoryController {
     }
     
     @PostMapping("/create-defaults")
-    public String createDefaultCategories(Authentication authentication, RedirectAttributes redirectAttributes) {
-        User user = getCurrentUser(authentication);
-        
+    public String createDefaultCategories(@CurrentUser User user, RedirectAttributes redirectAttributes) {
         try {
             categoryService.createDefaultCategories(user);
             redirectAttributes.addFlashAttribute("successMessage", "Default categories created successfully!");
@@ -222,9 +188,4 @@ public class CategoryController {
         
         return "redirect:/categories";
     }
-    
-    private User getCurrentUser(Authentication authentication) {
-        return userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
 }
@@ -0,0 +1,44 @@
+package com.finance.manager.controller;
+
+import com.finance.manager.entity.User;
+import com.finance.manager.security.CurrentUser;
+import com.finance.manager.service.ChangeLogService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+
+@Controller
+@RequestMapping("/changes")
+public class ChangeFeedController {
+    
+    @Autowired
+    private ChangeLogService changeLogService;
+    
+    @Value("${finance.changes.max-limit:10000}")
+    private int maxLimit;
+    
+    // Streams the current user's published changes after seq "since" as NDJSON; an empty body means
+    // caught up. Publishing is left to the scheduled publisher, so the newest commits may show up
+    // on a later poll.
+    @GetMapping
+    public void changes(@RequestParam(defaultValue = "0") long since,
+                        @RequestParam(defaultValue = "1000") int limit,
+                        @CurrentUser User user,
+                        HttpServletResponse response) throws IOException {
+        if (since < 0 || limit <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "since must not be negative and limit must be positive");
+        }
+        
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        changeLogService.stream(user.getId(), since, Math.min(limit, maxLimit), response.getOutputStream());
+    }
+}
@@ -1,27 +1,49 @@
 package com.finance.manager.controller;
 
+import com.finance.manager.dto.CategoryTypeTotal;
+import com.finance.manager.dto.CursorPage;
+import com.finance.manager.dto.ImportProgress;
+import com.finance.manager.dto.TransactionFilter;
+import com.finance.manager.dto.TransactionItem;
+import com.finance.manager.dto.TypeTotal;
+import com.finance.manager.dto.YearlyReport;
 import com.finance.manager.entity.Category;
 import com.finance.manager.entity.Transaction;
 import com.finance.manager.entity.User;
+import com.finance.manager.security.CurrentUser;
 import com.finance.manager.service.CategoryService;
+import com.finance.manager.service.TransactionExportService;
+import com.finance.manager.service.TransactionImportService;
 import com.finance.manager.service.TransactionService;
-import com.finance.manager.service.UserService;
+import com.finance.manager.service.YearlyReportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.security.core.Authentication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Controller
@@ -35,33 +57,49 @@ public class TransactionController {
     private CategoryService categoryService;
     
     @Autowired
-    private UserService userService;
+    private TransactionImportService transactionImportService;
+    
+    @Autowired
+    private TransactionExportService transactionExportService;
+    
+    @Autowired
+    private YearlyReportService yearlyReportService;
     
     @GetMapping
     public String listTransactions(
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer page,
             @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) Transaction.TransactionType type,
-            Authentication authentication,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @CurrentUser User user,
             Model model) {
         
-        User user = getCurrentUser(authentication);
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Transaction> transactions;
-        
-        // Apply filters based on parameters
-        if (search != null && !search.trim().isEmpty()) {
-            List<Transaction> searchResults = transactionService.searchTransactions(user, search.trim());
-            // Convert list to page for consistency (simplified pagination)
-            transactions = transactionService.findByUserOrderByDateDesc(user, pageable);
-        } else if (startDate != null && endDate != null) {
-            transactions = transactionService.findByUserAndDateBetween(user, startDate, endDate, pageable);
+        TransactionFilter filter = new TransactionFilter(startDate, endDate, categoryId, type, minAmount, maxAmount, search);
+        
+        // The unfiltered listing pages by cursor; an explicit page number or a filter uses offset paging
+        if (page == null && filter.isEmpty()) {
+            CursorPage<Transaction> transactions;
+            try {
+                transactions = transactionService.findByUserWithCursor(user, after, before, size);
+            } catch (IllegalArgumentException e) {
+                transactions = transactionService.findByUserWithCursor(user, null, null, size);
+            }
+            model.addAttribute("transactions", transactions);
+            model.addAttribute("keyset", true);
+            model.addAttribute("totalTransactions", transactionService.getTransactionCountByUser(user));
         } else {
-            transactions = transactionService.findByUserOrderByDateDesc(user, pageable);
+            Pageable pageable = PageRequest.of(page != null ? page : 0, size);
+            Page<Transaction> transactions = transactionService.findByFilter(user, filter, pageable);
+            model.addAttribute("transactions", transactions);
+            model.addAttribute("keyset", false);
+            model.addAttribute("totalTransactions", transactions.getTotalElements());
         }
         
         // Get categories for filter dropdown
@@ -72,23 +110,116 @@ public class TransactionController {
         BigDecimal totalExpense = transactionService.getTotalExpenseByUser(user);
         BigDecimal netIncome = totalIncome.subtract(totalExpense);
         
-        model.addAttribute("transactions", transactions);
         model.addAttribute("categories", categories);
         model.addAttribute("totalIncome", totalIncome);
         model.addAttribute("totalExpense", totalExpense);
         model.addAttribute("netIncome", netIncome);
+        model.addAttribute("size", size);
         model.addAttribute("search", search);
         model.addAttribute("startDate", startDate);
         model.addAttribute("endDate", endDate);
         model.addAttribute("selectedCategoryId", categoryId);
         model.addAttribute("selectedType", type);
+        model.addAttribute("minAmount", minAmount);
+        model.addAttribute("maxAmount", maxAmount);
         
         return "transactions/list";
     }
     
+    @GetMapping(value = "/history", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public CursorPage<TransactionItem> transactionHistory(
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
+            @CurrentUser User user) {
+        
+        try {
+            return transactionService.findByUserWithCursor(user, after, before, Math.min(size, 500))
+                    .map(TransactionItem::from);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+    
+    @GetMapping("/export")
+    public void exportTransactions(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @CurrentUser User user,
+            HttpServletResponse response) throws IOException {
+        
+        TransactionExportService.Format exportFormat;
+        try {
+            exportFormat = TransactionExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        }
+        
+        boolean csv = exportFormat == TransactionExportService.Format.CSV;
+        
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"transactions-" + LocalDate.now() + (csv ? ".csv" : ".ndjson") + "\"");
+        
+        transactionExportService.export(user, exportFormat, gzip, response.getOutputStream());
+    }
+    
+    @GetMapping("/import")
+    public String showImportForm() {
+        return "transactions/import";
+    }
+    
+    @PostMapping("/import")
+    public String importTransactions(
+            @RequestParam("file") MultipartFile file,
+            @CurrentUser User user,
+            RedirectAttributes redirectAttributes) {
+        
+        if (file.isEmpty()) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Please choose a CSV file to import");
+            return "redirect:/transactions/import";
+        }
+        
+        try {
+            Path upload = Files.createTempFile("transactions-import-", ".csv");
+            file.transferTo(upload);
+            ImportProgress progress = transactionImportService.startImport(user, upload);
+            return "redirect:/transactions/import/" + progress.getId();
+        } catch (TaskRejectedException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Too many imports are running, please try again in a few minutes");
+            return "redirect:/transactions/import";
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Error starting import: " + e.getMessage());
+            return "redirect:/transactions/import";
+        }
+    }
+    
+    @GetMapping("/import/{importId}")
+    public String showImportProgress(@PathVariable String importId, Model model, @CurrentUser User user) {
+        Optional<ImportProgress> progress = transactionImportService.findProgress(importId, user);
+        
+        if (progress.isEmpty()) {
+            return "redirect:/transactions/import";
+        }
+        
+        model.addAttribute("progress", progress.get());
+        return "transactions/import";
+    }
+    
+    @GetMapping(value = "/import/{importId}/status", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ImportProgress importStatus(@PathVariable String importId, @CurrentUser User user) {
+        return transactionImportService.findProgress(importId, user)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+    
     @GetMapping("/new")
-    public String showCreateForm(Model model, Authentication authentication) {
-        User user = getCurrentUser(authentication);
+    public String showCreateForm(Model model, @CurrentUser User user) {
         List<Category> categories = categoryService.findByUserOrderByTypeAndName(user);
         
         model.addAttribute("transaction", new Transaction());
@@ -101,12 +232,10 @@ public class TransactionController {
     public String createTransaction(
             @Valid @ModelAttribute Transaction transaction,
             BindingResult result,
-            Authentication authentication,
+            @CurrentUser User user,
             Model model,
             RedirectAttributes redirectAttributes) {
         
-        User user = getCurrentUser(authentication);
-        
         if (result.hasErrors()) {
             List<Category> categories = categoryService.findByUserOrderByTypeAndName(user);
             model.addAttribute("categories", categories);
@@ -135,8 +264,7 @@ public class TransactionController {
     }
     
     @GetMapping("/{id}")
-    public String viewTransaction(@PathVariable Long id, Model model, Authentication authentication) {
-        User user = getCurrentUser(authentication);
+    public String viewTransaction(@PathVariable Long id, Model model, @CurrentUser User user) {
         Optional<Transaction> transaction = transactionService.findById(id);
         
         if (transaction.isEmpty() || !transaction.get().getUser().getId().equals(user.getId())) {
@@ -148,8 +276,7 @@ public class TransactionController {
     }
     
     @GetMapping("/{id}/edit")
-    public String showEditForm(@PathVariable Long id, Model model, Authentication authentication) {
-        User user = getCurrentUser(authentication);
+    public String showEditForm(@PathVariable Long id, Model model, @CurrentUser User user) {
         Optional<Transaction> transaction = transactionService.findById(id);
         
         if (transaction.isEmpty() || !transaction.get().getUser().getId().equals(user.getId())) {
@@ -169,12 +296,10 @@ public class TransactionController {
             @PathVariable Long id,
             @Valid @ModelAttribute Transaction transaction,
             BindingResult result,
-            Authentication authentication,
+            @CurrentUser User user,
             Model model,
             RedirectAttributes redirectAttributes) {
         
-        User user = getCurrentUser(authentication);
-        
         if (result.hasErrors()) {
             List<Category> categories = categoryService.findByUserOrderByTypeAndName(user);
             model.addAttribute("categories", categories);
@@ -201,10 +326,9 @@ public class TransactionController {
     @PostMapping("/{id}/delete")
     public String deleteTransaction(
             @PathVariable Long id,
-            Authentication authentication,
+            @CurrentUser User user,
             RedirectAttributes redirectAttributes) {
         
-        User user = getCurrentUser(authentication);
         Optional<Transaction> transaction = transactionService.findById(id);
         
         if (transaction.isEmpty() || !transaction.get().getUser().getId().equals(user.getId())) {
@@ -221,15 +345,44 @@ public class TransactionController {
         return "redirect:/transactions";
     }
     
+    @GetMapping("/report")
+    public String showYearlyReport(
+            @RequestParam(required = false) Integer startYear,
+            @RequestParam(required = false) Integer endYear,
+            @CurrentUser User user,
+            Model model) {
+        
+        // Default to the current year; a single year given on either end is reported alone
+        if (startYear == null && endYear == null) {
+            startYear = LocalDate.now().getYear();
+        }
+        if (startYear == null) {
+            startYear = endYear;
+        }
+        if (endYear == null) {
+            endYear = startYear;
+        }
+        
+        model.addAttribute("startYear", startYear);
+        model.addAttribute("endYear", endYear);
+        try {
+            YearlyReport report = yearlyReportService.generate(user, startYear, endYear);
+            model.addAttribute("report", report);
+        } catch (IllegalArgumentException e) {
+            model.addAttribute("errorMessage", e.getMessage());
+        }
+        return "transactions/report";
+    }
+    
     @GetMapping("/summary")
     public String showSummary(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            Authentication authentication,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Transaction.TransactionType type,
+            @CurrentUser User user,
             Model model) {
         
-        User user = getCurrentUser(authentication);
-        
         // Set default date range if not provided (current month)
         if (startDate == null) {
             startDate = LocalDate.now().withDayOfMonth(1);
@@ -239,13 +392,27 @@ public class TransactionController {
         }
         
         // Get financial summary for date range
-        BigDecimal totalIncome = transactionService.getTotalIncomeByUserAndDateRange(user, startDate, endDate);
-        BigDecimal totalExpense = transactionService.getTotalExpenseByUserAndDateRange(user, startDate, endDate);
+        TransactionFilter filter = new TransactionFilter(startDate, endDate, categoryId, type, null, null, null);
+        Map<Transaction.TransactionType, TypeTotal> totals = transactionService.getTotalsByFilter(user, filter);
+        TypeTotal income = totals.getOrDefault(Transaction.TransactionType.INCOME, TypeTotal.empty(Transaction.TransactionType.INCOME));
+        TypeTotal expense = totals.getOrDefault(Transaction.TransactionType.EXPENSE, TypeTotal.empty(Transaction.TransactionType.EXPENSE));
+        BigDecimal totalIncome = income.total();
+        BigDecimal totalExpense = expense.total();
         BigDecimal netIncome = totalIncome.subtract(totalExpense);
-        long transactionCount = transactionService.getTransactionCountByUserAndDateRange(user, startDate, endDate);
+        long transactionCount = income.count() + expense.count();
         
         // Get transactions by category for chart data
         List<Category> categories = categoryService.findByUserOrderByTypeAndName(user);
+        Map<Long, Category> categoriesById = new HashMap<>();
+        categories.forEach(category -> categoriesById.put(category.getId(), category));
+        
+        // One grouped query per source regardless of how many categories there are, narrowed like the totals
+        List<CategoryTypeTotal> categoryTotals = transactionService.getTotalsByCategoryAndDateRange(user, startDate, endDate).stream()
+                .filter(row -> categoryId == null || categoryId.equals(row.categoryId()))
+                .filter(row -> type == null || type == row.type())
+                .sorted(Comparator.comparing(CategoryTypeTotal::type).reversed()
+                        .thenComparing(Comparator.comparing(CategoryTypeTotal::total).reversed()))
+                .toList();
         
         model.addAttribute("startDate", startDate);
         model.addAttribute("endDate", endDate);
@@ -254,12 +421,11 @@ public class TransactionController {
         model.addAttribute("netIncome", netIncome);
         model.addAttribute("transactionCount", transactionCount);
         model.addAttribute("categories", categories);
+        model.addAttribute("categoriesById", categoriesById);
+        model.addAttribute("categoryTotals", categoryTotals);
+        model.addAttribute("selectedCategoryId", categoryId);
+        model.addAttribute("selectedType", type);
         
         return "transactions/summary";
     }
-    
-    private User getCurrentUser(Authentication authentication) {
-        return userService.findByUsername(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-    }
 }
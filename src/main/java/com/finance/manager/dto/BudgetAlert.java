@@ -0,0 +1,11 @@
+package com.finance.manager.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Pushed to the budget owner when an expense write moves a budget across an alert threshold.
+ * exceeded is true when spending rose to or past the threshold and false when it fell back below.
+ */
+public record BudgetAlert(Long budgetId, String budgetName, int threshold, boolean exceeded,
+                          BigDecimal spentAmount, BigDecimal amount) {
+}
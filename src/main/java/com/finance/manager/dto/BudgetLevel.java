@@ -0,0 +1,10 @@
+package com.finance.manager.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Current fill level of a budget, as needed to detect alert threshold crossings.
+ */
+public record BudgetLevel(Long budgetId, Long userId, String name, BigDecimal amount, BigDecimal spentAmount,
+                          Integer alertThreshold) {
+}
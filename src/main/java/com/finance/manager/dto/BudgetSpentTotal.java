@@ -0,0 +1,17 @@
+package com.finance.manager.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Stored spent amount of an active budget next to the expense total its window actually covers.
+ */
+public record BudgetSpentTotal(Long budgetId, BigDecimal spentAmount, BigDecimal total) {
+    
+    public BigDecimal storedAmount() {
+        return spentAmount != null ? spentAmount : BigDecimal.ZERO;
+    }
+    
+    public boolean drifted() {
+        return spentAmount == null || spentAmount.compareTo(total) != 0;
+    }
+}
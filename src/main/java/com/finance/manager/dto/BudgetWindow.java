@@ -0,0 +1,9 @@
+package com.finance.manager.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Date window of an active budget within its category.
+ */
+public record BudgetWindow(Long budgetId, Long categoryId, LocalDate startDate, LocalDate endDate) {
+}
@@ -0,0 +1,22 @@
+package com.finance.manager.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Lifetime transaction count and total for one category, plus how many fall in the current month.
+ */
+public record CategoryStats(Long transactionCount, BigDecimal totalAmount, Long transactionsThisMonth) {
+    
+    public CategoryStats {
+        transactionCount = transactionCount != null ? transactionCount : 0L;
+        totalAmount = totalAmount != null ? totalAmount : BigDecimal.ZERO;
+        transactionsThisMonth = transactionsThisMonth != null ? transactionsThisMonth : 0L;
+    }
+    
+    public BigDecimal averageAmount() {
+        return transactionCount > 0
+                ? totalAmount.divide(BigDecimal.valueOf(transactionCount), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+    }
+}
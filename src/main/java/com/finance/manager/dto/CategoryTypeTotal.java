@@ -0,0 +1,22 @@
+package com.finance.manager.dto;
+
+import com.finance.manager.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Sum and row count of transactions of one type within one category.
+ */
+public record CategoryTypeTotal(Long categoryId, Transaction.TransactionType type, BigDecimal total, Long count) {
+    
+    public CategoryTypeTotal plus(CategoryTypeTotal other) {
+        return new CategoryTypeTotal(categoryId, type, total.add(other.total()), count + other.count());
+    }
+    
+    // Rounded percentage of the given total this row accounts for
+    public int shareOf(BigDecimal grandTotal) {
+        return grandTotal.signum() == 0 ? 0
+                : total.multiply(BigDecimal.valueOf(100)).divide(grandTotal, 0, RoundingMode.HALF_UP).intValue();
+    }
+}
@@ -0,0 +1,12 @@
+package com.finance.manager.dto;
+
+import com.finance.manager.entity.ChangeLogEntry;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of the change feed; consumers resume from the seq of the last event they processed.
+ */
+public record ChangeEvent(Long seq, ChangeLogEntry.EntityType entityType, Long entityId,
+                          ChangeLogEntry.Operation operation, LocalDateTime changedAt) {
+}
@@ -0,0 +1,35 @@
+package com.finance.manager.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing. Unlike {@link org.springframework.data.domain.Page}
+ * it carries no total count, only opaque cursors for the neighbouring pages.
+ */
+public class CursorPage<T> {
+    
+    private final List<T> content;
+    private final String nextCursor;
+    private final String previousCursor;
+    
+    public CursorPage(List<T> content, String nextCursor, String previousCursor) {
+        this.content = List.copyOf(content);
+        this.nextCursor = nextCursor;
+        this.previousCursor = previousCursor;
+    }
+    
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(content.stream().<R>map(mapper).toList(), nextCursor, previousCursor);
+    }
+    
+    public List<T> getContent() { return content; }
+    
+    public String getNextCursor() { return nextCursor; }
+    
+    public String getPreviousCursor() { return previousCursor; }
+    
+    public boolean isHasNext() { return nextCursor != null; }
+    
+    public boolean isHasPrevious() { return previousCursor != null; }
+}
@@ -0,0 +1,67 @@
+package com.finance.manager.dto;
+
+import com.finance.manager.entity.Budget;
+import com.finance.manager.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable view of every figure rendered by the dashboard page.
+ */
+public record DashboardSnapshot(
+        BigDecimal monthlyIncome,
+        BigDecimal monthlyExpense,
+        long monthlyTransactionCount,
+        BigDecimal totalIncome,
+        BigDecimal totalExpense,
+        List<Transaction> recentTransactions,
+        List<Budget> activeBudgets,
+        List<Budget> overBudgets,
+        BigDecimal totalBudgetAmount,
+        BigDecimal totalSpentAmount,
+        long incomeCategoryCount,
+        long expenseCategoryCount,
+        List<String> chartLabels,
+        List<BigDecimal> chartIncome,
+        List<BigDecimal> chartExpense) {
+
+    public DashboardSnapshot {
+        recentTransactions = List.copyOf(recentTransactions);
+        activeBudgets = List.copyOf(activeBudgets);
+        overBudgets = List.copyOf(overBudgets);
+        chartLabels = List.copyOf(chartLabels);
+        chartIncome = List.copyOf(chartIncome);
+        chartExpense = List.copyOf(chartExpense);
+    }
+
+    public BigDecimal monthlyNet() {
+        return monthlyIncome.subtract(monthlyExpense);
+    }
+
+    public BigDecimal totalNet() {
+        return totalIncome.subtract(totalExpense);
+    }
+
+    public long overBudgetCount() {
+        return overBudgets.size();
+    }
+
+    public boolean needsDefaultCategories() {
+        return incomeCategoryCount == 0 || expenseCategoryCount == 0;
+    }
+
+    public Map<String, Object> chartData() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("labels", chartLabels);
+        data.put("incomeData", chartIncome);
+        data.put("expenseData", chartExpense);
+        data.put("netData", IntStream.range(0, chartIncome.size())
+                .mapToObj(i -> chartIncome.get(i).subtract(chartExpense.get(i)))
+                .toList());
+        return data;
+    }
+}
@@ -0,0 +1,86 @@
+package com.finance.manager.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live status of one CSV import, polled by the import page while the job runs.
+ */
+public class ImportProgress {
+    
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+    
+    public record RowError(long line, String message) {}
+    
+    private static final int MAX_REPORTED_ERRORS = 100;
+    
+    private final String id;
+    private final Long userId;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsImported = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final List<RowError> errors = Collections.synchronizedList(new ArrayList<>());
+    private volatile Status status = Status.RUNNING;
+    private volatile String failureMessage;
+    private volatile LocalDateTime finishedAt;
+    
+    public ImportProgress(String id, Long userId) {
+        this.id = id;
+        this.userId = userId;
+    }
+    
+    public void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+    
+    public void rowsImported(long count) {
+        rowsImported.addAndGet(count);
+    }
+    
+    public void rowFailed(long line, String message) {
+        if (errorCount.incrementAndGet() <= MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(line, message));
+        }
+    }
+    
+    public void complete() {
+        finishedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+    
+    public void fail(String message) {
+        failureMessage = message;
+        finishedAt = LocalDateTime.now();
+        status = Status.FAILED;
+    }
+    
+    public String getId() { return id; }
+    
+    public Long getUserId() { return userId; }
+    
+    public Status getStatus() { return status; }
+    
+    public long getRowsRead() { return rowsRead.get(); }
+    
+    public long getRowsImported() { return rowsImported.get(); }
+    
+    public long getErrorCount() { return errorCount.get(); }
+    
+    public List<RowError> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+    
+    public String getFailureMessage() { return failureMessage; }
+    
+    public LocalDateTime getStartedAt() { return startedAt; }
+    
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+}
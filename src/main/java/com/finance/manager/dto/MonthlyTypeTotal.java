@@ -0,0 +1,12 @@
+package com.finance.manager.dto;
+
+import com.finance.manager.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sum and row count of transactions of one type within the calendar month starting at {@code periodStart}.
+ */
+public record MonthlyTypeTotal(LocalDate periodStart, Transaction.TransactionType type, BigDecimal total, Long count) {
+}
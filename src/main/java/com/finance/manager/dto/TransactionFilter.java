@@ -0,0 +1,42 @@
+package com.finance.manager.dto;
+
+import com.finance.manager.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Optional criteria for narrowing a user's transactions. Every null field is ignored, and
+ * either end of the date or amount range may be left open.
+ */
+public record TransactionFilter(LocalDate startDate, LocalDate endDate, Long categoryId,
+                                Transaction.TransactionType type, BigDecimal minAmount,
+                                BigDecimal maxAmount, String keyword) {
+    
+    public TransactionFilter {
+        keyword = keyword == null || keyword.isBlank() ? null : keyword.trim();
+    }
+    
+    public static TransactionFilter none() {
+        return new TransactionFilter(null, null, null, null, null, null, null);
+    }
+    
+    public static TransactionFilter forDateRange(LocalDate startDate, LocalDate endDate) {
+        return new TransactionFilter(startDate, endDate, null, null, null, null, null);
+    }
+    
+    public boolean isEmpty() {
+        return keyword == null && !hasStructuredCriteria();
+    }
+    
+    // True when anything other than the keyword is set
+    public boolean hasStructuredCriteria() {
+        return startDate != null || endDate != null || categoryId != null || type != null
+                || minAmount != null || maxAmount != null;
+    }
+    
+    // True when the filter is at most a date range, which the monthly rollups can answer
+    public boolean isDateRangeOnly() {
+        return categoryId == null && type == null && minAmount == null && maxAmount == null && keyword == null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.finance.manager.dto;
+
+import com.finance.manager.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Flat transaction representation for JSON responses.
+ */
+public record TransactionItem(Long id, LocalDate date, String description, BigDecimal amount,
+                              Transaction.TransactionType type, Long categoryId, String categoryName, String notes) {
+    
+    public static TransactionItem from(Transaction transaction) {
+        return new TransactionItem(transaction.getId(), transaction.getDate(), transaction.getDescription(),
+                transaction.getAmount(), transaction.getType(), transaction.getCategory().getId(),
+                transaction.getCategory().getName(), transaction.getNotes());
+    }
+}
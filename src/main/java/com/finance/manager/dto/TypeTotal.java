@@ -0,0 +1,19 @@
+package com.finance.manager.dto;
+
+import com.finance.manager.entity.Transaction;
+
+import java.math.BigDecimal;
+
+/**
+ * Sum and row count of transactions of one type.
+ */
+public record TypeTotal(Transaction.TransactionType type, BigDecimal total, Long count) {
+    
+    public static TypeTotal empty(Transaction.TransactionType type) {
+        return new TypeTotal(type, BigDecimal.ZERO, 0L);
+    }
+    
+    public TypeTotal plus(TypeTotal other) {
+        return new TypeTotal(type, total.add(other.total()), count + other.count());
+    }
+}
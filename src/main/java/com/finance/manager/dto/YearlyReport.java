@@ -0,0 +1,48 @@
+package com.finance.manager.dto;
+
+import com.finance.manager.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Per-month by per-category totals of a range of whole years, with the largest expenses, the
+ * income sources ranked by total and how well each budget overlapping the range was kept.
+ */
+public record YearlyReport(int startYear, int endYear, List<YearMonth> months,
+                           List<CategoryRow> expenseRows, List<CategoryRow> incomeSources,
+                           List<BigDecimal> monthlyIncome, List<BigDecimal> monthlyExpense,
+                           BigDecimal totalIncome, BigDecimal totalExpense,
+                           List<TransactionItem> topExpenses, List<BudgetAdherence> budgets) {
+
+    public BigDecimal netIncome() {
+        return totalIncome.subtract(totalExpense);
+    }
+
+    // Totals of one category for each month of the report
+    public record CategoryRow(Long categoryId, String categoryName, Transaction.TransactionType type,
+                              List<BigDecimal> monthly, BigDecimal total) {
+
+        public int shareOf(BigDecimal grandTotal) {
+            return grandTotal.signum() == 0 ? 0
+                    : total.multiply(BigDecimal.valueOf(100)).divide(grandTotal, 0, RoundingMode.HALF_UP).intValue();
+        }
+    }
+
+    // Expenses of a budget's category within its window, whether or not the budget is still active
+    public record BudgetAdherence(Long budgetId, String name, String categoryName, LocalDate startDate,
+                                  LocalDate endDate, BigDecimal amount, BigDecimal spent) {
+
+        public int percentUsed() {
+            return amount.signum() == 0 ? 0
+                    : spent.multiply(BigDecimal.valueOf(100)).divide(amount, 0, RoundingMode.HALF_UP).intValue();
+        }
+
+        public boolean isOverBudget() {
+            return spent.compareTo(amount) > 0;
+        }
+    }
+}
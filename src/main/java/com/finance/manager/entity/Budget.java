@@ -2,6 +2,8 @@ package com.finance.manager.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -15,7 +17,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "budgets")
+@Table(name = "budgets", indexes = {
+    @Index(name = "idx_budgets_active_end_date", columnList = "active, end_date")
+})
 public class Budget {
     
     @Id
@@ -55,6 +59,11 @@ public class Budget {
     @Column(precision = 19, scale = 2)
     private BigDecimal spentAmount = BigDecimal.ZERO;
     
+    // Optional extra alert level in percent of amount, on top of the default 80% and 100%
+    @Min(value = 1, message = "Alert threshold must be at least 1%")
+    @Max(value = 1000, message = "Alert threshold must not exceed 1000%")
+    private Integer alertThreshold;
+    
     private boolean active = true;
     
     @CreationTimestamp
@@ -134,6 +143,9 @@ public class Budget {
     public BigDecimal getSpentAmount() { return spentAmount; }
     public void setSpentAmount(BigDecimal spentAmount) { this.spentAmount = spentAmount; }
     
+    public Integer getAlertThreshold() { return alertThreshold; }
+    public void setAlertThreshold(Integer alertThreshold) { this.alertThreshold = alertThreshold; }
+    
     public boolean isActive() { return active; }
     public void setActive(boolean active) { this.active = active; }
     
@@ -0,0 +1,57 @@
+package com.finance.manager.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Outbox row: the coalesced expense delta a committed write owes to one budget's spent amount
+@Entity
+@Table(name = "budget_impact_events", indexes = {
+    @Index(name = "idx_budget_impact_events_user", columnList = "user_id, id"),
+    @Index(name = "idx_budget_impact_events_budget", columnList = "budget_id")
+})
+public class BudgetImpactEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "budget_id", nullable = false)
+    private Long budgetId;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal delta;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public BudgetImpactEvent() {}
+    
+    public BudgetImpactEvent(Long userId, Long budgetId, BigDecimal delta) {
+        this.userId = userId;
+        this.budgetId = budgetId;
+        this.delta = delta;
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public Long getBudgetId() { return budgetId; }
+    public void setBudgetId(Long budgetId) { this.budgetId = budgetId; }
+    
+    public BigDecimal getDelta() { return delta; }
+    public void setDelta(BigDecimal delta) { this.delta = delta; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
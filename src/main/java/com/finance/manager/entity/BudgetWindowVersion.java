@@ -0,0 +1,30 @@
+package com.finance.manager.entity;
+
+import jakarta.persistence.*;
+
+// Bumped by every change to a user's budgets, so each node can tell whether its cached windows are current
+@Entity
+@Table(name = "budget_window_versions")
+public class BudgetWindowVersion {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Column(nullable = false)
+    private long version;
+    
+    // Constructors
+    public BudgetWindowVersion() {}
+    
+    public BudgetWindowVersion(Long userId) {
+        this.userId = userId;
+    }
+    
+    // Getters and Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+}
@@ -0,0 +1,72 @@
+package com.finance.manager.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Append-only record of an insert, update or delete, read by downstream consumers in seq order.
+// The seq stays null until the entry has committed and been published by ChangeLogPublisher.
+@Entity
+@Table(name = "change_log", indexes = {
+    @Index(name = "idx_change_log_user_seq", columnList = "user_id, seq"),
+    @Index(name = "idx_change_log_seq", columnList = "seq", unique = true),
+    @Index(name = "idx_change_log_changed_at", columnList = "changed_at")
+})
+public class ChangeLogEntry {
+    
+    public enum EntityType {
+        TRANSACTION, BUDGET, CATEGORY
+    }
+    
+    public enum Operation {
+        INSERT, UPDATE, DELETE
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    private Long seq;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false)
+    private EntityType entityType;
+    
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Operation operation;
+    
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+    
+    // Constructors
+    public ChangeLogEntry() {}
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getSeq() { return seq; }
+    public void setSeq(Long seq) { this.seq = seq; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public EntityType getEntityType() { return entityType; }
+    public void setEntityType(EntityType entityType) { this.entityType = entityType; }
+    
+    public Long getEntityId() { return entityId; }
+    public void setEntityId(Long entityId) { this.entityId = entityId; }
+    
+    public Operation getOperation() { return operation; }
+    public void setOperation(Operation operation) { this.operation = operation; }
+    
+    public LocalDateTime getChangedAt() { return changedAt; }
+    public void setChangedAt(LocalDateTime changedAt) { this.changedAt = changedAt; }
+}
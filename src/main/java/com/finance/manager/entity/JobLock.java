@@ -0,0 +1,50 @@
+package com.finance.manager.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// One row per scheduled job; a node owns the job while lockedUntil lies in the future
+@Entity
+@Table(name = "job_locks")
+public class JobLock {
+    
+    @Id
+    @Column(length = 64)
+    private String name;
+    
+    @Column(nullable = false)
+    private LocalDateTime lockedUntil;
+    
+    private LocalDateTime lockedAt;
+    
+    @Column(length = 255)
+    private String lockedBy;
+    
+    // Highest seq handed out by a publisher that holds this row lock; survives pruning of the entries
+    private Long lastSeq;
+    
+    // Constructors
+    public JobLock() {}
+    
+    public JobLock(String name, LocalDateTime lockedUntil) {
+        this.name = name;
+        this.lockedUntil = lockedUntil;
+    }
+    
+    // Getters and Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public LocalDateTime getLockedUntil() { return lockedUntil; }
+    public void setLockedUntil(LocalDateTime lockedUntil) { this.lockedUntil = lockedUntil; }
+    
+    public LocalDateTime getLockedAt() { return lockedAt; }
+    public void setLockedAt(LocalDateTime lockedAt) { this.lockedAt = lockedAt; }
+    
+    public String getLockedBy() { return lockedBy; }
+    public void setLockedBy(String lockedBy) { this.lockedBy = lockedBy; }
+    
+    public Long getLastSeq() { return lastSeq; }
+    public void setLastSeq(Long lastSeq) { this.lastSeq = lastSeq; }
+}
@@ -13,7 +13,11 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    @Index(name = "idx_transactions_user_date", columnList = "user_id, date, id"),
+    @Index(name = "idx_transactions_user_category_date", columnList = "user_id, category_id, date"),
+    @Index(name = "idx_transactions_user_type_date", columnList = "user_id, type, date")
+})
 public class Transaction {
     
     @Id
@@ -0,0 +1,106 @@
+package com.finance.manager.job;
+
+import com.finance.manager.service.BudgetRolloverService;
+import com.finance.manager.service.BudgetService;
+import com.finance.manager.service.JobLockService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Deactivates budgets of all users whose end date has passed, first rolling recurring ones over
+ * into their next period. Both steps share this job so a budget is never expired before it had
+ * the chance to roll over. Runs on one node at a time and works in chunks of at most
+ * finance.budgets.expiry-chunk-size budgets, each in its own transaction.
+ */
+@Component
+public class BudgetExpiryJob {
+    
+    private static final Logger log = LoggerFactory.getLogger(BudgetExpiryJob.class);
+    
+    private static final String LOCK_NAME = "budget-expiry";
+    
+    private final BudgetService budgetService;
+    private final BudgetRolloverService budgetRolloverService;
+    private final JobLockService jobLockService;
+    private final boolean rolloverEnabled;
+    private final int chunkSize;
+    private final Duration lockAtMostFor;
+    
+    private final Counter rolledOver;
+    private final Counter deactivated;
+    private final Counter skipped;
+    private final Timer duration;
+    
+    public BudgetExpiryJob(BudgetService budgetService,
+                           BudgetRolloverService budgetRolloverService,
+                           JobLockService jobLockService,
+                           @Value("${finance.budgets.rollover-enabled:true}") boolean rolloverEnabled,
+                           @Value("${finance.budgets.expiry-chunk-size:1000}") int chunkSize,
+                           @Value("${finance.budgets.expiry-lock-at-most-for:30m}") Duration lockAtMostFor,
+                           MeterRegistry meterRegistry) {
+        this.budgetService = budgetService;
+        this.budgetRolloverService = budgetRolloverService;
+        this.jobLockService = jobLockService;
+        this.rolloverEnabled = rolloverEnabled;
+        this.chunkSize = chunkSize;
+        this.lockAtMostFor = lockAtMostFor;
+        this.rolledOver = Counter.builder("finance.budgets.rollover.created")
+                .description("Recurring budgets rolled over into their next period")
+                .register(meterRegistry);
+        this.deactivated = Counter.builder("finance.budgets.expiry.deactivated")
+                .description("Budgets deactivated by the expiry job")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("finance.budgets.expiry.skipped")
+                .description("Expiry runs skipped because another node held the lock")
+                .register(meterRegistry);
+        this.duration = Timer.builder("finance.budgets.expiry.duration")
+                .description("Duration of expiry runs")
+                .register(meterRegistry);
+    }
+    
+    @Scheduled(cron = "${finance.budgets.expiry-cron:0 5 0 * * *}")
+    public void expire() {
+        if (!jobLockService.tryLock(LOCK_NAME, lockAtMostFor)) {
+            skipped.increment();
+            log.debug("Skipping budget expiry, lock is held by another node");
+            return;
+        }
+        try {
+            duration.record(this::deactivateAll);
+        } finally {
+            jobLockService.unlock(LOCK_NAME);
+        }
+    }
+    
+    private void deactivateAll() {
+        long started = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        int rolled = 0;
+        int affected;
+        if (rolloverEnabled) {
+            do {
+                affected = budgetRolloverService.rolloverDueBudgets(today, chunkSize);
+                rolledOver.increment(affected);
+                rolled += affected;
+            } while (affected == chunkSize);
+        }
+        
+        int total = 0;
+        do {
+            affected = budgetService.deactivateExpiredBudgets(today, chunkSize);
+            deactivated.increment(affected);
+            total += affected;
+        } while (affected == chunkSize);
+        log.info("Rolled over {} and deactivated {} expired budgets in {} ms",
+                rolled, total, System.currentTimeMillis() - started);
+    }
+}
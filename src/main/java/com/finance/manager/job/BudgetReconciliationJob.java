@@ -0,0 +1,49 @@
+package com.finance.manager.job;
+
+import com.finance.manager.service.BudgetService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Re-derives every active budget's spent amount from the transactions table, correcting any
+ * drift in the incrementally maintained values. Users are processed in chunks, each with one
+ * grouped query and one batched update.
+ */
+@Component
+public class BudgetReconciliationJob {
+    
+    private static final Logger log = LoggerFactory.getLogger(BudgetReconciliationJob.class);
+    
+    @Autowired
+    private BudgetService budgetService;
+    
+    @Value("${finance.budgets.reconcile-chunk-size:500}")
+    private int chunkSize;
+    
+    // Walks users with active budgets in id order; each chunk is refreshed in its own transaction
+    @Scheduled(cron = "${finance.budgets.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        long started = System.currentTimeMillis();
+        int users = 0;
+        int corrected = 0;
+        Long afterUserId = 0L;
+        List<Long> userIds;
+        while (!(userIds = budgetService.findUserIdsWithActiveBudgets(afterUserId, chunkSize)).isEmpty()) {
+            try {
+                corrected += budgetService.refreshSpentAmounts(userIds);
+            } catch (RuntimeException e) {
+                log.warn("Failed to reconcile budgets of users {} to {}", userIds.get(0), userIds.get(userIds.size() - 1), e);
+            }
+            users += userIds.size();
+            afterUserId = userIds.get(userIds.size() - 1);
+        }
+        log.info("Reconciled active budgets of {} users in {} ms, corrected {} spent amounts",
+                users, System.currentTimeMillis() - started, corrected);
+    }
+}
@@ -0,0 +1,44 @@
+package com.finance.manager.job;
+
+import com.finance.manager.service.ChangeLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Deletes change log entries older than the retention period, in chunks so each delete stays a
+ * short transaction. Consumers must read the feed more often than the retention period.
+ */
+@Component
+public class ChangeLogPruneJob {
+    
+    private static final Logger log = LoggerFactory.getLogger(ChangeLogPruneJob.class);
+    
+    @Autowired
+    private ChangeLogService changeLogService;
+    
+    @Value("${finance.changes.retention:P30D}")
+    private Duration retention;
+    
+    @Value("${finance.changes.prune-chunk-size:1000}")
+    private int chunkSize;
+    
+    @Scheduled(cron = "${finance.changes.prune-cron:0 15 4 * * *}")
+    public void prune() {
+        long started = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int total = 0;
+        int affected;
+        do {
+            affected = changeLogService.pruneChangedBefore(cutoff, chunkSize);
+            total += affected;
+        } while (affected == chunkSize);
+        log.info("Pruned {} change log entries older than {} in {} ms", total, cutoff, System.currentTimeMillis() - started);
+    }
+}
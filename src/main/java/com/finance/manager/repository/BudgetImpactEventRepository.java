@@ -0,0 +1,28 @@
+package com.finance.manager.repository;
+
+import com.finance.manager.entity.BudgetImpactEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BudgetImpactEventRepository extends JpaRepository<BudgetImpactEvent, Long> {
+    
+    @Query("SELECT e FROM BudgetImpactEvent e WHERE e.userId = :userId ORDER BY e.id")
+    List<BudgetImpactEvent> findPendingByUserId(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query("SELECT DISTINCT e.userId FROM BudgetImpactEvent e ORDER BY e.userId")
+    List<Long> findPendingUserIds(Pageable pageable);
+    
+    boolean existsByUserId(Long userId);
+    
+    @Modifying
+    @Query("DELETE FROM BudgetImpactEvent e WHERE e.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
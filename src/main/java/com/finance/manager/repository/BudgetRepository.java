@@ -1,22 +1,37 @@
 package com.finance.manager.repository;
 
+import com.finance.manager.dto.BudgetLevel;
+import com.finance.manager.dto.BudgetSpentTotal;
+import com.finance.manager.dto.BudgetWindow;
 import com.finance.manager.entity.Budget;
 import com.finance.manager.entity.Category;
+import com.finance.manager.entity.Transaction;
 import com.finance.manager.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BudgetRepository extends JpaRepository<Budget, Long> {
     
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Optional<Budget> findById(Long id);
+    
     List<Budget> findByUser(User user);
     
+    @EntityGraph(attributePaths = "category")
     List<Budget> findByUserAndActive(User user, boolean active);
     
     List<Budget> findByUserAndCategory(User user, Category category);
@@ -29,6 +44,12 @@ public interface BudgetRepository extends JpaRepository<Budget, Long> {
                                            @Param("category") Category category,
                                            @Param("date") LocalDate date);
     
+    @Query("SELECT b FROM Budget b WHERE b.user = :user AND b.category = :category AND b.startDate <= :toDate AND b.endDate >= :fromDate AND b.active = true")
+    List<Budget> findActiveByCategoryOverlapping(@Param("user") User user,
+                                                 @Param("category") Category category,
+                                                 @Param("fromDate") LocalDate fromDate,
+                                                 @Param("toDate") LocalDate toDate);
+    
     @Query("SELECT b FROM Budget b WHERE b.user = :user AND b.period = :period AND b.active = true")
     List<Budget> findByUserAndPeriodAndActive(@Param("user") User user, 
                                             @Param("period") Budget.BudgetPeriod period);
@@ -36,6 +57,42 @@ public interface BudgetRepository extends JpaRepository<Budget, Long> {
     @Query("SELECT b FROM Budget b WHERE b.user = :user AND b.endDate < :currentDate AND b.active = true")
     List<Budget> findExpiredBudgets(@Param("user") User user, @Param("currentDate") LocalDate currentDate);
     
+    @Query("SELECT new com.finance.manager.dto.BudgetWindow(b.id, b.category.id, b.startDate, b.endDate) " +
+           "FROM Budget b WHERE b.user.id = :userId AND b.active = true")
+    List<BudgetWindow> findActiveWindowsByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT new com.finance.manager.dto.BudgetLevel(b.id, b.user.id, b.name, b.amount, b.spentAmount, b.alertThreshold) " +
+           "FROM Budget b WHERE b.id IN :ids")
+    List<BudgetLevel> findLevelsByIds(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT b.id FROM Budget b WHERE b.active = true AND b.endDate < :currentDate ORDER BY b.id")
+    List<Long> findExpiredIds(@Param("currentDate") LocalDate currentDate, Pageable pageable);
+    
+    @Query("SELECT DISTINCT b.user.id FROM Budget b WHERE b.id IN :ids")
+    List<Long> findUserIdsByIds(@Param("ids") Collection<Long> ids);
+    
+    // Recurring budgets that ended and have no later active budget in their category yet
+    @Query("SELECT b FROM Budget b WHERE b.active = true AND b.endDate < :currentDate AND b.period <> :custom " +
+           "AND NOT EXISTS (SELECT n.id FROM Budget n WHERE n.user = b.user AND n.category = b.category " +
+           "AND n.active = true AND n.startDate > b.endDate) ORDER BY b.id")
+    List<Budget> findDueForRollover(@Param("currentDate") LocalDate currentDate,
+                                    @Param("custom") Budget.BudgetPeriod custom,
+                                    Pageable pageable);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Budget b SET b.active = false, b.updatedAt = :now " +
+           "WHERE b.id IN :ids AND b.active = true AND b.endDate < :currentDate")
+    int deactivateExpiredByIds(@Param("ids") Collection<Long> ids,
+                               @Param("currentDate") LocalDate currentDate,
+                               @Param("now") LocalDateTime now);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Budget b SET b.active = false, b.updatedAt = :now " +
+           "WHERE b.user = :user AND b.active = true AND b.endDate < :currentDate")
+    int deactivateExpiredByUser(@Param("user") User user,
+                                @Param("currentDate") LocalDate currentDate,
+                                @Param("now") LocalDateTime now);
+    
     @Query("SELECT SUM(b.amount) FROM Budget b WHERE b.user = :user AND b.active = true")
     BigDecimal sumActivebudgetAmountByUser(@Param("user") User user);
     
@@ -45,8 +102,36 @@ public interface BudgetRepository extends JpaRepository<Budget, Long> {
     @Query("SELECT COUNT(b) FROM Budget b WHERE b.user = :user AND b.spentAmount > b.amount")
     long countOverBudgetsByUser(@Param("user") User user);
     
+    @Query("SELECT b FROM Budget b JOIN FETCH b.category WHERE b.user = :user AND b.startDate <= :toDate AND b.endDate >= :fromDate " +
+           "ORDER BY b.startDate, b.id")
+    List<Budget> findByUserOverlapping(@Param("user") User user, @Param("fromDate") LocalDate fromDate,
+                                       @Param("toDate") LocalDate toDate);
+    
     @Query("SELECT b FROM Budget b WHERE b.user = :user ORDER BY b.endDate ASC")
     List<Budget> findByUserOrderByEndDate(@Param("user") User user);
     
     boolean existsByUserAndNameAndActive(User user, String name, boolean active);
+    
+    @Query("SELECT DISTINCT b.user.id FROM Budget b WHERE b.active = true AND b.user.id > :afterUserId ORDER BY b.user.id")
+    List<Long> findUserIdsWithActiveBudgets(@Param("afterUserId") Long afterUserId, Pageable pageable);
+    
+    // Deltas still queued as budget impact events are left out, so the drain can add them later
+    @Query("SELECT new com.finance.manager.dto.BudgetSpentTotal(b.id, b.spentAmount, COALESCE(SUM(t.amount), 0) - " +
+           "(SELECT COALESCE(SUM(e.delta), 0) FROM BudgetImpactEvent e WHERE e.budgetId = b.id)) " +
+           "FROM Budget b LEFT JOIN Transaction t ON t.user = b.user AND t.category = b.category AND t.type = :type " +
+           "AND t.date BETWEEN b.startDate AND b.endDate " +
+           "WHERE b.active = true AND b.user.id IN :userIds GROUP BY b.id, b.spentAmount")
+    List<BudgetSpentTotal> sumSpentTotalsByUserIds(@Param("userIds") Collection<Long> userIds,
+                                                   @Param("type") Transaction.TransactionType type);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Budget b SET b.spentAmount = COALESCE(b.spentAmount, 0) + :delta WHERE b.id = :id AND b.active = true")
+    int addToSpentAmountById(@Param("id") Long id, @Param("delta") BigDecimal delta);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Budget b SET b.spentAmount = (SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t " +
+           "WHERE t.user = b.user AND t.category = b.category AND t.type = :type " +
+           "AND t.date BETWEEN b.startDate AND b.endDate) - " +
+           "(SELECT COALESCE(SUM(e.delta), 0) FROM BudgetImpactEvent e WHERE e.budgetId = b.id) WHERE b.id = :id")
+    int recomputeSpentAmount(@Param("id") Long id, @Param("type") Transaction.TransactionType type);
 }
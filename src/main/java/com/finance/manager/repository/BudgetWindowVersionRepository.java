@@ -0,0 +1,33 @@
+package com.finance.manager.repository;
+
+import com.finance.manager.entity.BudgetWindowVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BudgetWindowVersionRepository extends JpaRepository<BudgetWindowVersion, Long> {
+    
+    @Query("SELECT v.version FROM BudgetWindowVersion v WHERE v.userId = :userId")
+    Optional<Long> findVersionByUserId(@Param("userId") Long userId);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE BudgetWindowVersion v SET v.version = v.version + 1 WHERE v.userId = :userId")
+    int increment(@Param("userId") Long userId);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE BudgetWindowVersion v SET v.version = v.version + 1 WHERE v.userId IN :userIds")
+    int incrementAll(@Param("userIds") Collection<Long> userIds);
+    
+    @Query("SELECT v.userId FROM BudgetWindowVersion v WHERE v.userId IN :userIds")
+    List<Long> findUserIdsIn(@Param("userIds") Collection<Long> userIds);
+}
@@ -2,11 +2,15 @@ package com.finance.manager.repository;
 
 import com.finance.manager.entity.Category;
 import com.finance.manager.entity.User;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 import java.util.List;
 import java.util.Optional;
 
@@ -33,6 +37,10 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     
     boolean existsByUserAndName(User user, String name);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT c.type, COUNT(c) FROM Category c WHERE c.user = :user GROUP BY c.type")
+    List<Object[]> countByUserGroupedByType(@Param("user") User user);
+    
     @Query("SELECT COUNT(c) FROM Category c WHERE c.user = :user AND c.type = :type")
     long countByUserAndType(@Param("user") User user, @Param("type") Category.CategoryType type);
 }
@@ -0,0 +1,30 @@
+package com.finance.manager.repository;
+
+import com.finance.manager.dto.ChangeEvent;
+import com.finance.manager.entity.ChangeLogEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+    
+    @Query("SELECT new com.finance.manager.dto.ChangeEvent(e.seq, e.entityType, e.entityId, e.operation, e.changedAt) " +
+           "FROM ChangeLogEntry e WHERE e.userId = :userId AND e.seq > :since ORDER BY e.seq")
+    List<ChangeEvent> findEventsAfter(@Param("userId") Long userId, @Param("since") Long since, Pageable pageable);
+    
+    // Unpublished entries are kept, so a consumer never misses one that committed before the cutoff
+    @Query("SELECT e.id FROM ChangeLogEntry e WHERE e.changedAt < :cutoff AND e.seq IS NOT NULL ORDER BY e.seq")
+    List<Long> findPublishedIdsChangedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+    
+    @Modifying
+    @Query("DELETE FROM ChangeLogEntry e WHERE e.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,85 @@
+package com.finance.manager.repository;
+
+import com.finance.manager.dto.CategoryStats;
+import com.finance.manager.dto.CategoryTypeTotal;
+import com.finance.manager.dto.MonthlyTypeTotal;
+import com.finance.manager.dto.TypeTotal;
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.MonthlyRollup;
+import com.finance.manager.entity.Transaction;
+import com.finance.manager.entity.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MonthlyRollupRepository extends JpaRepository<MonthlyRollup, Long> {
+    
+    @Modifying
+    @Query("UPDATE MonthlyRollup r SET r.totalAmount = r.totalAmount + :amount, r.transactionCount = r.transactionCount + :count " +
+           "WHERE r.user = :user AND r.periodStart = :periodStart AND r.category = :category AND r.type = :type")
+    int applyDelta(@Param("user") User user,
+                   @Param("periodStart") LocalDate periodStart,
+                   @Param("category") Category category,
+                   @Param("type") Transaction.TransactionType type,
+                   @Param("amount") BigDecimal amount,
+                   @Param("count") long count);
+    
+    @Query("SELECT SUM(r.totalAmount) FROM MonthlyRollup r WHERE r.user = :user AND r.type = :type")
+    BigDecimal sumAmountByUserAndType(@Param("user") User user, @Param("type") Transaction.TransactionType type);
+    
+    @Query("SELECT SUM(r.transactionCount) FROM MonthlyRollup r WHERE r.user = :user")
+    Long sumCountByUser(@Param("user") User user);
+    
+    @Query("SELECT new com.finance.manager.dto.TypeTotal(r.type, SUM(r.totalAmount), SUM(r.transactionCount)) " +
+           "FROM MonthlyRollup r WHERE r.user = :user AND r.periodStart BETWEEN :fromPeriod AND :toPeriod GROUP BY r.type")
+    List<TypeTotal> sumByUserAndPeriodBetweenGroupedByType(@Param("user") User user,
+                                                          @Param("fromPeriod") LocalDate fromPeriod,
+                                                          @Param("toPeriod") LocalDate toPeriod);
+    
+    @Query("SELECT new com.finance.manager.dto.CategoryTypeTotal(r.category.id, r.type, SUM(r.totalAmount), SUM(r.transactionCount)) " +
+           "FROM MonthlyRollup r WHERE r.user = :user AND r.periodStart BETWEEN :fromPeriod AND :toPeriod GROUP BY r.category.id, r.type")
+    List<CategoryTypeTotal> sumByUserAndPeriodBetweenGroupedByCategoryAndType(@Param("user") User user,
+                                                                             @Param("fromPeriod") LocalDate fromPeriod,
+                                                                             @Param("toPeriod") LocalDate toPeriod);
+    
+    @Query("SELECT SUM(r.totalAmount) FROM MonthlyRollup r WHERE r.user = :user AND r.category = :category " +
+           "AND r.periodStart BETWEEN :fromPeriod AND :toPeriod")
+    BigDecimal sumAmountByUserAndCategoryAndPeriodBetween(@Param("user") User user,
+                                                         @Param("category") Category category,
+                                                         @Param("fromPeriod") LocalDate fromPeriod,
+                                                         @Param("toPeriod") LocalDate toPeriod);
+    
+    @Query("SELECT new com.finance.manager.dto.CategoryStats(SUM(r.transactionCount), SUM(r.totalAmount), " +
+           "SUM(CASE WHEN r.periodStart >= :monthStart THEN r.transactionCount ELSE 0 END)) " +
+           "FROM MonthlyRollup r WHERE r.user = :user AND r.category = :category")
+    CategoryStats summarizeByUserAndCategory(@Param("user") User user,
+                                             @Param("category") Category category,
+                                             @Param("monthStart") LocalDate monthStart);
+    
+    @Query("SELECT new com.finance.manager.dto.MonthlyTypeTotal(r.periodStart, r.type, SUM(r.totalAmount), SUM(r.transactionCount)) " +
+           "FROM MonthlyRollup r WHERE r.user = :user GROUP BY r.periodStart, r.type")
+    List<MonthlyTypeTotal> sumByUserGroupedByPeriodAndType(@Param("user") User user);
+    
+    @Query("SELECT r.user.id, r.category.id, r.periodStart, r.totalAmount FROM MonthlyRollup r " +
+           "WHERE r.user.id IN :userIds AND r.type = :type AND r.periodStart BETWEEN :fromMonth AND :toMonth")
+    List<Object[]> findTotalsByUserIdsAndPeriodBetween(@Param("userIds") Collection<Long> userIds,
+                                                       @Param("type") Transaction.TransactionType type,
+                                                       @Param("fromMonth") LocalDate fromMonth,
+                                                       @Param("toMonth") LocalDate toMonth);
+    
+    @Modifying
+    @Query("DELETE FROM MonthlyRollup r WHERE r.user = :user")
+    int deleteByUser(@Param("user") User user);
+    
+    @Modifying
+    @Query("DELETE FROM MonthlyRollup r WHERE r.category = :category")
+    int deleteByCategory(@Param("category") Category category);
+}
@@ -1,21 +1,47 @@
 package com.finance.manager.repository;
 
+import com.finance.manager.dto.CategoryTypeTotal;
+import com.finance.manager.dto.TransactionItem;
+import com.finance.manager.dto.TypeTotal;
 import com.finance.manager.entity.Category;
 import com.finance.manager.entity.Transaction;
 import com.finance.manager.entity.User;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction> {
+    
+    // Lookups and pages that feed rendered views fetch the category in the same statement
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Optional<Transaction> findById(Long id);
+    
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Transaction> findAllById(Iterable<Long> ids);
+    
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Page<Transaction> findAll(Specification<Transaction> spec, Pageable pageable);
     
     List<Transaction> findByUser(User user);
     
@@ -23,6 +49,8 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     
     List<Transaction> findByUserAndCategory(User user, Category category);
     
+    List<Transaction> findTop10ByUserAndCategoryOrderByDateDescIdDesc(User user, Category category);
+    
     List<Transaction> findByUserAndType(User user, Transaction.TransactionType type);
     
     @Query("SELECT t FROM Transaction t WHERE t.user = :user AND t.date BETWEEN :startDate AND :endDate ORDER BY t.date DESC")
@@ -63,9 +91,62 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
                                   @Param("startDate") LocalDate startDate,
                                   @Param("endDate") LocalDate endDate);
     
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT t FROM Transaction t WHERE t.user = :user ORDER BY t.date DESC")
     Page<Transaction> findByUserOrderByDateDesc(@Param("user") User user, Pageable pageable);
     
+    @EntityGraph(attributePaths = "category")
+    List<Transaction> findTop5ByUserOrderByDateDesc(User user);
+    
+    // Keyset pagination over (date DESC, id DESC); id breaks ties between transactions on the same day
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT t FROM Transaction t WHERE t.user = :user ORDER BY t.date DESC, t.id DESC")
+    List<Transaction> findLatestByUser(@Param("user") User user, Limit limit);
+    
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT t FROM Transaction t WHERE t.user = :user AND (t.date < :date OR (t.date = :date AND t.id < :id)) " +
+           "ORDER BY t.date DESC, t.id DESC")
+    List<Transaction> findByUserOlderThan(@Param("user") User user,
+                                          @Param("date") LocalDate date,
+                                          @Param("id") Long id,
+                                          Limit limit);
+    
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT t FROM Transaction t WHERE t.user = :user AND (t.date > :date OR (t.date = :date AND t.id > :id)) " +
+           "ORDER BY t.date ASC, t.id ASC")
+    List<Transaction> findByUserNewerThan(@Param("user") User user,
+                                          @Param("date") LocalDate date,
+                                          @Param("id") Long id,
+                                          Limit limit);
+    
+    @Query("SELECT new com.finance.manager.dto.TypeTotal(t.type, SUM(t.amount), COUNT(t)) FROM Transaction t " +
+           "WHERE t.user = :user AND t.date BETWEEN :startDate AND :endDate GROUP BY t.type")
+    List<TypeTotal> sumByUserAndDateBetweenGroupedByType(@Param("user") User user,
+                                                        @Param("startDate") LocalDate startDate,
+                                                        @Param("endDate") LocalDate endDate);
+    
+    @Query("SELECT new com.finance.manager.dto.CategoryTypeTotal(t.category.id, t.type, SUM(t.amount), COUNT(t)) FROM Transaction t " +
+           "WHERE t.user = :user AND t.date BETWEEN :startDate AND :endDate GROUP BY t.category.id, t.type")
+    List<CategoryTypeTotal> sumByUserAndDateBetweenGroupedByCategoryAndType(@Param("user") User user,
+                                                                           @Param("startDate") LocalDate startDate,
+                                                                           @Param("endDate") LocalDate endDate);
+    
+    @Query("SELECT YEAR(t.date), MONTH(t.date), t.category.id, t.type, SUM(t.amount), COUNT(t) FROM Transaction t " +
+           "WHERE t.user = :user GROUP BY YEAR(t.date), MONTH(t.date), t.category.id, t.type")
+    List<Object[]> sumByUserGroupedByMonthAndCategoryAndType(@Param("user") User user);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.finance.manager.dto.TransactionItem(t.id, t.date, t.description, t.amount, t.type, c.id, c.name, t.notes) " +
+           "FROM Transaction t JOIN t.category c WHERE t.user = :user ORDER BY t.date, t.id")
+    Stream<TransactionItem> streamItemsByUser(@Param("user") User user);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.id, t.amount, t.date, t.type, t.category.id FROM Transaction t WHERE t.user.id = :userId ORDER BY t.date, t.id")
+    Stream<Object[]> streamColumnsByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT t.id, t.date, t.category.id, t.type, t.amount, t.description, t.notes FROM Transaction t WHERE t.user.id = :userId")
+    List<Object[]> findSearchFieldsByUserId(@Param("userId") Long userId);
+    
     @Query("SELECT t FROM Transaction t WHERE t.user = :user AND (LOWER(t.description) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(t.notes) LIKE LOWER(CONCAT('%', :keyword, '%')))")
     List<Transaction> findByUserAndDescriptionOrNotesContaining(@Param("user") User user, 
                                                                @Param("keyword") String keyword);
@@ -0,0 +1,53 @@
+package com.finance.manager.repository;
+
+import com.finance.manager.dto.TransactionFilter;
+import com.finance.manager.entity.Transaction;
+import com.finance.manager.entity.User;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the single WHERE clause used by every filtered transaction view. The predicates are
+ * ordered user, category or type, then date so they line up with the composite indexes on
+ * {@link Transaction}. Keywords are not matched in SQL: a filter with one is answered by the
+ * transaction search index, which applies the same criteria to its hits.
+ */
+public final class TransactionSpecifications {
+    
+    private TransactionSpecifications() {
+    }
+    
+    public static Specification<Transaction> matching(User user, TransactionFilter filter) {
+        if (filter.keyword() != null) {
+            throw new IllegalArgumentException("Keyword filters are matched by the search index");
+        }
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(root.get("user"), user));
+            
+            if (filter.categoryId() != null) {
+                predicates.add(cb.equal(root.get("category").get("id"), filter.categoryId()));
+            }
+            if (filter.type() != null) {
+                predicates.add(cb.equal(root.get("type"), filter.type()));
+            }
+            if (filter.startDate() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("date"), filter.startDate()));
+            }
+            if (filter.endDate() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("date"), filter.endDate()));
+            }
+            if (filter.minAmount() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("amount"), filter.minAmount()));
+            }
+            if (filter.maxAmount() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("amount"), filter.maxAmount()));
+            }
+            
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,107 @@
+package com.finance.manager.security;
+
+import com.finance.manager.entity.User;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Authenticated user as stored in the security context. It carries the database id and the
+ * display fields so requests can identify the user without reading the users table again.
+ */
+public class UserPrincipal implements UserDetails, CredentialsContainer {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final String firstName;
+    private final String lastName;
+    private final boolean enabled;
+    private String password;
+    
+    public UserPrincipal(User user) {
+        this.id = user.getId();
+        this.username = user.getUsername();
+        this.email = user.getEmail();
+        this.firstName = user.getFirstName();
+        this.lastName = user.getLastName();
+        this.enabled = user.isEnabled();
+        this.password = user.getPassword();
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    @Override
+    public String getUsername() {
+        return username;
+    }
+    
+    @Override
+    public String getPassword() {
+        return password;
+    }
+    
+    public String getEmail() {
+        return email;
+    }
+    
+    public String getFirstName() {
+        return firstName;
+    }
+    
+    public String getLastName() {
+        return lastName;
+    }
+    
+    public String getFullName() {
+        return firstName + " " + lastName;
+    }
+    
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.emptyList(); // No roles for now, just basic authentication
+    }
+    
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+    
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+    
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+    
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    // The password hash is only needed while authenticating; don't keep it in the session
+    @Override
+    public void eraseCredentials() {
+        this.password = null;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof UserPrincipal other && username.equals(other.username);
+    }
+    
+    @Override
+    public int hashCode() {
+        return username.hashCode();
+    }
+}
@@ -0,0 +1,167 @@
+package com.finance.manager.service;
+
+import com.finance.manager.dto.BudgetAlert;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Holds the open budget alert streams of each user. Idle streams are parked async servlet
+ * requests and cost no thread; alerts and heartbeats are written on the small alert executor so
+ * committing transactions and the scheduler never wait on a client. A stream whose write fails is
+ * dropped, and the browser's EventSource reconnects on its own.
+ *
+ * Each stream queues its own events and is written by at most one sender task at a time, so a
+ * client that stops reading holds up only its own stream. Once its queue is full it is dropped
+ * instead of being waited on.
+ */
+@Component
+public class BudgetAlertBroadcaster {
+    
+    private static final Logger log = LoggerFactory.getLogger(BudgetAlertBroadcaster.class);
+    
+    // One open stream and the events waiting to be written to it
+    private final class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean dropped;
+        
+        Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(maxPending);
+        }
+        
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (dropped) {
+                return;
+            }
+            if (!pending.offer(event)) {
+                // Closed by its sender task, which may still be blocked writing earlier events
+                log.debug("Dropping a budget alert stream of user {} that fell behind", userId);
+                dropped = true;
+                remove(this);
+            }
+            scheduleDrain();
+        }
+        
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    alertExecutor.execute(this::drain);
+                } catch (TaskRejectedException e) {
+                    // The events stay queued and the next offer tries again
+                    draining.set(false);
+                    log.warn("Delaying budget alert delivery, alert queue is full");
+                }
+            }
+        }
+        
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while (!dropped && (event = pending.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        dropped = true;
+                        remove(this);
+                    }
+                }
+                if (dropped) {
+                    pending.clear();
+                    emitter.complete();
+                    return;
+                }
+                draining.set(false);
+            } while (!pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+    
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ThreadPoolTaskExecutor alertExecutor;
+    private final long timeoutMillis;
+    private final int maxPending;
+    
+    public BudgetAlertBroadcaster(@Qualifier("alertExecutor") ThreadPoolTaskExecutor alertExecutor,
+                                  @Value("${finance.budgets.alerts.timeout:30m}") Duration timeout,
+                                  @Value("${finance.budgets.alerts.max-pending:32}") int maxPending,
+                                  MeterRegistry meterRegistry) {
+        this.alertExecutor = alertExecutor;
+        this.timeoutMillis = timeout.toMillis();
+        this.maxPending = maxPending;
+        Gauge.builder("finance.budgets.alerts.connections", this, BudgetAlertBroadcaster::connectionCount)
+                .description("Open budget alert streams")
+                .register(meterRegistry);
+    }
+    
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        subscribers.compute(userId, (id, userSubscribers) -> {
+            Set<Subscriber> updated = userSubscribers != null ? userSubscribers : ConcurrentHashMap.newKeySet();
+            updated.add(subscriber);
+            return updated;
+        });
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        return emitter;
+    }
+    
+    public boolean hasSubscribers(Long userId) {
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        return userSubscribers != null && !userSubscribers.isEmpty();
+    }
+    
+    public void publish(Long userId, BudgetAlert alert) {
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : userSubscribers) {
+            subscriber.offer(SseEmitter.event().name("budget-alert").data(alert, MediaType.APPLICATION_JSON));
+        }
+    }
+    
+    // Keeps proxies from closing idle streams and weeds out clients that went away
+    @Scheduled(fixedDelayString = "${finance.budgets.alerts.heartbeat:PT30S}")
+    public void heartbeat() {
+        subscribers.forEach((userId, userSubscribers) -> {
+            for (Subscriber subscriber : userSubscribers) {
+                subscriber.offer(SseEmitter.event().comment("heartbeat"));
+            }
+        });
+    }
+    
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (id, userSubscribers) -> {
+            userSubscribers.remove(subscriber);
+            return userSubscribers.isEmpty() ? null : userSubscribers;
+        });
+    }
+    
+    private double connectionCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+}
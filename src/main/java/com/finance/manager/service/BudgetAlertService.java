@@ -0,0 +1,92 @@
+package com.finance.manager.service;
+
+import com.finance.manager.dto.BudgetAlert;
+import com.finance.manager.dto.BudgetLevel;
+import com.finance.manager.repository.BudgetRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Detects budgets whose spent amount crossed an alert threshold (the configured defaults plus the
+ * budget's own alertThreshold, in percent of amount) as expense deltas are applied, and pushes the
+ * crossings to the owner once the transaction commits. Levels are only read when one of the
+ * affected users has an alert stream open.
+ */
+@Service
+public class BudgetAlertService {
+    
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    
+    @Autowired
+    private BudgetRepository budgetRepository;
+    
+    @Autowired
+    private BudgetAlertBroadcaster budgetAlertBroadcaster;
+    
+    @Value("${finance.budgets.alerts.thresholds:80,100}")
+    private List<Integer> defaultThresholds;
+    
+    // Called with the deltas just applied to each budget, after the spent amounts were updated
+    public void detectCrossings(Set<Long> userIds, Map<Long, BigDecimal> appliedDeltas) {
+        if (appliedDeltas.isEmpty() || userIds.stream().noneMatch(budgetAlertBroadcaster::hasSubscribers)) {
+            return;
+        }
+        
+        List<BudgetAlert> alerts = new ArrayList<>();
+        List<Long> owners = new ArrayList<>();
+        for (BudgetLevel level : budgetRepository.findLevelsByIds(appliedDeltas.keySet())) {
+            if (level.amount() == null || level.amount().signum() <= 0 || !budgetAlertBroadcaster.hasSubscribers(level.userId())) {
+                continue;
+            }
+            BigDecimal after = level.spentAmount() != null ? level.spentAmount() : BigDecimal.ZERO;
+            BigDecimal before = after.subtract(appliedDeltas.get(level.budgetId()));
+            for (int threshold : thresholdsOf(level)) {
+                BigDecimal limit = level.amount().multiply(BigDecimal.valueOf(threshold)).divide(HUNDRED);
+                boolean wasReached = before.compareTo(limit) >= 0;
+                boolean isReached = after.compareTo(limit) >= 0;
+                if (wasReached != isReached) {
+                    alerts.add(new BudgetAlert(level.budgetId(), level.name(), threshold, isReached, after, level.amount()));
+                    owners.add(level.userId());
+                }
+            }
+        }
+        if (alerts.isEmpty()) {
+            return;
+        }
+        
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(owners, alerts);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(owners, alerts);
+            }
+        });
+    }
+    
+    private Set<Integer> thresholdsOf(BudgetLevel level) {
+        Set<Integer> thresholds = new TreeSet<>(defaultThresholds);
+        if (level.alertThreshold() != null) {
+            thresholds.add(level.alertThreshold());
+        }
+        return thresholds;
+    }
+    
+    private void publish(List<Long> owners, List<BudgetAlert> alerts) {
+        for (int i = 0; i < alerts.size(); i++) {
+            budgetAlertBroadcaster.publish(owners.get(i), alerts.get(i));
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.finance.manager.service;
+
+import com.finance.manager.entity.BudgetImpactEvent;
+import com.finance.manager.repository.BudgetImpactEventRepository;
+import com.finance.manager.repository.BudgetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Outbox for budget spent amounts. When async budget impacts are enabled, {@link DirtyBudgetSet}
+ * records a {@link BudgetImpactEvent} per budget holding the coalesced expense delta of the
+ * writing transaction instead of updating the budget, and the user is signalled once it commits.
+ *
+ * Events are consumed per user on the budget impact executor, at most one drain per user at a
+ * time and in id order. Each batch is claimed by deleting its rows and its deltas are added to
+ * the budgets in the same transaction, so an event is applied exactly once: the deleted row is
+ * the record that it was applied. Like a synchronous write, each budget moved is logged as a
+ * BUDGET UPDATE in the change log. Recomputing a spent amount from the transactions subtracts
+ * the deltas still pending, so a reconciliation racing the queue cannot double-count either.
+ * A poller picks up users whose signal was lost, for example to a restart or a full executor.
+ *
+ * Reads are eventual by default. With read-your-writes, {@link #catchUp(Long)} applies the user's
+ * events on the calling thread before a read until none are left, giving up after the catch-up
+ * timeout; the caller marks what it shows as possibly stale when that happens.
+ */
+@Component
+public class BudgetImpactQueue {
+
+    public enum ReadConsistency { READ_YOUR_WRITES, EVENTUAL }
+
+    private static final Logger log = LoggerFactory.getLogger(BudgetImpactQueue.class);
+
+    @Autowired
+    private BudgetImpactEventRepository budgetImpactEventRepository;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private BudgetAlertService budgetAlertService;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ThreadPoolTaskExecutor budgetImpactExecutor;
+
+    @Value("${finance.budgets.impact.async:false}")
+    private boolean async;
+
+    @Value("${finance.budgets.impact.read-consistency:eventual}")
+    private ReadConsistency readConsistency;
+
+    @Value("${finance.budgets.impact.batch-size:500}")
+    private int batchSize;
+
+    @Value("${finance.budgets.impact.catch-up-timeout:2s}")
+    private Duration catchUpTimeout;
+
+    // Users with a drain queued or running on the executor
+    private final Set<Long> draining = ConcurrentHashMap.newKeySet();
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    // Records a budget's delta in the current transaction; the user's drain is started once it commits
+    public void enqueue(Long userId, Long budgetId, BigDecimal delta) {
+        budgetImpactEventRepository.save(new BudgetImpactEvent(userId, budgetId, delta));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            signal(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                signal(userId);
+            }
+        });
+    }
+
+    // Applies all of the user's pending impacts before a read, unless reads may lag behind writes.
+    // Returns false when some could not be applied in time or failed, so the caller can flag the
+    // amounts it shows as stale; the events stay queued for the worker.
+    public boolean catchUp(Long userId) {
+        if (!async || readConsistency == ReadConsistency.EVENTUAL) {
+            return true;
+        }
+        long deadline = System.nanoTime() + catchUpTimeout.toNanos();
+        try {
+            while (drainBatch(userId)) {
+                if (System.nanoTime() - deadline >= 0) {
+                    if (!budgetImpactEventRepository.existsByUserId(userId)) {
+                        return true;
+                    }
+                    log.warn("Budget impacts of user {} still pending after {}, serving a stale read", userId, catchUpTimeout);
+                    return false;
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Could not apply budget impacts of user {} before a read", userId, e);
+            return false;
+        }
+    }
+
+    public void signal(Long userId) {
+        if (!draining.add(userId)) {
+            return;
+        }
+        try {
+            budgetImpactExecutor.execute(() -> drain(userId));
+        } catch (TaskRejectedException e) {
+            draining.remove(userId);
+            log.warn("Budget impact queue is full, leaving user {} to the poller", userId);
+        }
+    }
+
+    // Picks up events whose signal was lost to a restart, a full executor or a failed drain
+    @Scheduled(fixedDelayString = "${finance.budgets.impact.poll-interval:PT10S}")
+    public void poll() {
+        if (!async) {
+            return;
+        }
+        budgetImpactEventRepository.findPendingUserIds(PageRequest.of(0, batchSize)).forEach(this::signal);
+    }
+
+    private void drain(Long userId) {
+        try {
+            while (drainBatch(userId)) {
+                // keep going until the user has no pending events
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to apply budget impacts of user {}, retrying on the next poll", userId, e);
+        } finally {
+            draining.remove(userId);
+        }
+        // An event committed after the last batch but signalled while this drain was running
+        if (budgetImpactEventRepository.existsByUserId(userId)) {
+            signal(userId);
+        }
+    }
+
+    // Claims and applies one batch of the user's events; returns false when there was nothing to claim
+    private boolean drainBatch(Long userId) {
+        Boolean claimed = transactionTemplate.execute(status -> {
+            List<BudgetImpactEvent> events =
+                    budgetImpactEventRepository.findPendingByUserId(userId, PageRequest.of(0, batchSize));
+            if (events.isEmpty()) {
+                return false;
+            }
+            // Deleting blocks on a concurrent drain of the same rows and then finds them gone
+            List<Long> ids = events.stream().map(BudgetImpactEvent::getId).toList();
+            if (budgetImpactEventRepository.deleteByIds(ids) != ids.size()) {
+                status.setRollbackOnly();
+                return true;
+            }
+
+            Map<Long, BigDecimal> budgetDeltas = new LinkedHashMap<>();
+            for (BudgetImpactEvent event : events) {
+                budgetDeltas.merge(event.getBudgetId(), event.getDelta(), BigDecimal::add);
+            }
+            Map<Long, BigDecimal> applied = new HashMap<>();
+            budgetDeltas.forEach((budgetId, delta) -> {
+                if (delta.signum() != 0 && budgetRepository.addToSpentAmountById(budgetId, delta) > 0) {
+                    applied.put(budgetId, delta);
+                }
+            });
+            changeLogService.recordBudgetUpdates(applied.keySet());
+            budgetAlertService.detectCrossings(Set.of(userId), applied);
+            return true;
+        });
+        return Boolean.TRUE.equals(claimed);
+    }
+}
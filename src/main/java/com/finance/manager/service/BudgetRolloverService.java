@@ -0,0 +1,166 @@
+package com.finance.manager.service;
+
+import com.finance.manager.entity.Budget;
+import com.finance.manager.entity.ChangeLogEntry;
+import com.finance.manager.entity.Transaction;
+import com.finance.manager.repository.BudgetRepository;
+import com.finance.manager.repository.MonthlyRollupRepository;
+import com.finance.manager.util.JdbcBatches;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rolls recurring budgets (every period but CUSTOM) over into their next period once they end.
+ * The successor keeps name, amount, category, description and alert threshold, starts the day
+ * after its predecessor ends and is advanced period by period until it covers today.
+ *
+ * Work is done in chunks: one query for the due budgets, one for the rollups of their users, one
+ * JDBC batch inserting the successors and one bulk UPDATE deactivating the predecessors. Spent
+ * amounts of successors spanning whole calendar months are seeded from the monthly rollups;
+ * windows with partial months are brought up to date with a single grouped refresh per chunk.
+ */
+@Service
+@Transactional
+public class BudgetRolloverService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO budgets (name, amount, start_date, end_date, period, user_id, category_id, description, " +
+            "alert_threshold, spent_amount, active, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private record Successor(Budget predecessor, LocalDate startDate, LocalDate endDate) {
+
+        boolean coversWholeMonths() {
+            return startDate.getDayOfMonth() == 1 && endDate.equals(YearMonth.from(endDate).atEndOfMonth());
+        }
+    }
+
+    private record RollupKey(Long userId, Long categoryId, LocalDate periodStart) {}
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private MonthlyRollupRepository monthlyRollupRepository;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private BudgetWindowIndex budgetWindowIndex;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Rolls over up to limit due budgets and returns how many were rolled over
+    public int rolloverDueBudgets(LocalDate currentDate, int limit) {
+        List<Budget> due = budgetRepository.findDueForRollover(currentDate, Budget.BudgetPeriod.CUSTOM, PageRequest.of(0, limit));
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        List<Successor> successors = new ArrayList<>(due.size());
+        Set<Long> userIds = new LinkedHashSet<>();
+        LocalDate firstStart = null;
+        LocalDate lastEnd = null;
+        for (Budget budget : due) {
+            LocalDate startDate = budget.getEndDate().plusDays(1);
+            LocalDate endDate = budgetService.determineEndDateFromPeriod(startDate, budget.getPeriod());
+            while (endDate.isBefore(currentDate)) {
+                startDate = endDate.plusDays(1);
+                endDate = budgetService.determineEndDateFromPeriod(startDate, budget.getPeriod());
+            }
+            successors.add(new Successor(budget, startDate, endDate));
+            userIds.add(budget.getUser().getId());
+            firstStart = firstStart == null || startDate.isBefore(firstStart) ? startDate : firstStart;
+            lastEnd = lastEnd == null || endDate.isAfter(lastEnd) ? endDate : lastEnd;
+        }
+
+        Map<RollupKey, BigDecimal> rollups = new HashMap<>();
+        for (Object[] row : monthlyRollupRepository.findTotalsByUserIdsAndPeriodBetween(userIds,
+                Transaction.TransactionType.EXPENSE, firstStart.withDayOfMonth(1), lastEnd.withDayOfMonth(1))) {
+            rollups.put(new RollupKey((Long) row[0], (Long) row[1], (LocalDate) row[2]), (BigDecimal) row[3]);
+        }
+
+        Set<Long> partialUserIds = new LinkedHashSet<>();
+        List<BigDecimal> spentAmounts = new ArrayList<>(successors.size());
+        for (Successor successor : successors) {
+            Budget budget = successor.predecessor();
+            if (!successor.coversWholeMonths()) {
+                partialUserIds.add(budget.getUser().getId());
+                spentAmounts.add(BigDecimal.ZERO);
+                continue;
+            }
+            BigDecimal spent = BigDecimal.ZERO;
+            for (YearMonth month = YearMonth.from(successor.startDate()); !month.isAfter(YearMonth.from(successor.endDate()));
+                 month = month.plusMonths(1)) {
+                BigDecimal total = rollups.get(new RollupKey(budget.getUser().getId(), budget.getCategory().getId(), month.atDay(1)));
+                if (total != null) {
+                    spent = spent.add(total);
+                }
+            }
+            spentAmounts.add(spent);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> successorIds = JdbcBatches.insertReturningIds(jdbcTemplate, INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Successor successor = successors.get(i);
+                Budget budget = successor.predecessor();
+                ps.setString(1, budget.getName());
+                ps.setBigDecimal(2, budget.getAmount());
+                ps.setDate(3, Date.valueOf(successor.startDate()));
+                ps.setDate(4, Date.valueOf(successor.endDate()));
+                ps.setString(5, budget.getPeriod().name());
+                ps.setLong(6, budget.getUser().getId());
+                ps.setLong(7, budget.getCategory().getId());
+                ps.setString(8, budget.getDescription());
+                ps.setObject(9, budget.getAlertThreshold(), Types.INTEGER);
+                ps.setBigDecimal(10, spentAmounts.get(i));
+                ps.setBoolean(11, true);
+                ps.setTimestamp(12, now);
+                ps.setTimestamp(13, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return successors.size();
+            }
+        });
+
+        for (int i = 0; i < successors.size(); i++) {
+            changeLogService.record(successors.get(i).predecessor().getUser().getId(), ChangeLogEntry.EntityType.BUDGET,
+                    successorIds.get(i), ChangeLogEntry.Operation.INSERT);
+        }
+
+        List<Long> dueIds = due.stream().map(Budget::getId).toList();
+        changeLogService.recordExpiredBudgets(dueIds, currentDate);
+        budgetRepository.deactivateExpiredByIds(dueIds, currentDate, now.toLocalDateTime());
+        budgetService.refreshSpentAmounts(partialUserIds);
+        budgetWindowIndex.invalidateAfterCommit(userIds);
+        return due.size();
+    }
+}
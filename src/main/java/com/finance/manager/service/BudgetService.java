@@ -1,16 +1,27 @@
 package com.finance.manager.service;
 
+import com.finance.manager.dto.BudgetSpentTotal;
 import com.finance.manager.entity.Budget;
 import com.finance.manager.entity.Category;
+import com.finance.manager.entity.ChangeLogEntry;
+import com.finance.manager.entity.Transaction;
 import com.finance.manager.entity.User;
 import com.finance.manager.repository.BudgetRepository;
 import com.finance.manager.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,16 +29,35 @@ import java.util.Optional;
 @Transactional
 public class BudgetService {
     
+    private static final String REFRESH_SPENT_SQL =
+            "UPDATE budgets SET spent_amount = ? WHERE id = ? AND COALESCE(spent_amount, 0) = ?";
+    
     @Autowired
     private BudgetRepository budgetRepository;
     
     @Autowired
     private TransactionRepository transactionRepository;
     
+    @Autowired
+    private DirtyBudgetSet dirtyBudgetSet;
+    
+    @Autowired
+    private BudgetWindowIndex budgetWindowIndex;
+    
+    @Autowired
+    private ChangeLogService changeLogService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     public List<Budget> findAll() {
         return budgetRepository.findAll();
     }
     
+    @Transactional(readOnly = true)
     public Optional<Budget> findById(Long id) {
         return budgetRepository.findById(id);
     }
@@ -61,14 +91,19 @@ public class BudgetService {
     }
     
     public Budget save(Budget budget) {
+        boolean created = budget.getId() == null;
         Budget savedBudget = budgetRepository.save(budget);
+        budgetWindowIndex.invalidateAfterCommit(savedBudget.getUser().getId());
+        changeLogService.record(savedBudget.getUser().getId(), ChangeLogEntry.EntityType.BUDGET, savedBudget.getId(),
+                created ? ChangeLogEntry.Operation.INSERT : ChangeLogEntry.Operation.UPDATE);
         // Recalculate spent amount after saving
         updateBudgetSpentAmount(savedBudget);
         return savedBudget;
     }
     
     public Budget createBudget(String name, BigDecimal amount, LocalDate startDate, LocalDate endDate,
-                              Budget.BudgetPeriod period, User user, Category category, String description) {
+                              Budget.BudgetPeriod period, User user, Category category, String description,
+                              Integer alertThreshold) {
         if (budgetRepository.existsByUserAndNameAndActive(user, name, true)) {
             throw new RuntimeException("Active budget with name '" + name + "' already exists");
         }
@@ -82,6 +117,7 @@ public class BudgetService {
         budget.setUser(user);
         budget.setCategory(category);
         budget.setDescription(description);
+        budget.setAlertThreshold(alertThreshold);
         budget.setActive(true);
         
         return save(budget);
@@ -97,6 +133,7 @@ public class BudgetService {
                     budget.setPeriod(updatedBudget.getPeriod());
                     budget.setCategory(updatedBudget.getCategory());
                     budget.setDescription(updatedBudget.getDescription());
+                    budget.setAlertThreshold(updatedBudget.getAlertThreshold());
                     budget.setActive(updatedBudget.isActive());
                     
                     return save(budget);
@@ -105,7 +142,13 @@ public class BudgetService {
     }
     
     public void deleteBudget(Long id) {
-        budgetRepository.deleteById(id);
+        budgetRepository.findById(id)
+                .ifPresent(budget -> {
+                    budgetRepository.delete(budget);
+                    budgetWindowIndex.invalidateAfterCommit(budget.getUser().getId());
+                    changeLogService.record(budget.getUser().getId(), ChangeLogEntry.EntityType.BUDGET,
+                            id, ChangeLogEntry.Operation.DELETE);
+                });
     }
     
     public void deactivateBudget(Long id) {
@@ -113,15 +156,16 @@ public class BudgetService {
                 .ifPresent(budget -> {
                     budget.setActive(false);
                     budgetRepository.save(budget);
+                    budgetWindowIndex.invalidateAfterCommit(budget.getUser().getId());
+                    changeLogService.record(budget.getUser().getId(), ChangeLogEntry.EntityType.BUDGET,
+                            id, ChangeLogEntry.Operation.UPDATE);
                 });
     }
     
+    // Recomputes from the authoritative SUM in a single UPDATE so concurrent deltas are not overwritten
     public void updateBudgetSpentAmount(Budget budget) {
-        BigDecimal spentAmount = transactionRepository.sumAmountByUserAndCategoryAndDateBetween(
-                budget.getUser(), budget.getCategory(), budget.getStartDate(), budget.getEndDate());
-        
-        budget.setSpentAmount(spentAmount != null ? spentAmount : BigDecimal.ZERO);
-        budgetRepository.save(budget);
+        budgetRepository.recomputeSpentAmount(budget.getId(), Transaction.TransactionType.EXPENSE);
+        entityManager.refresh(budget);
     }
     
     public void updateBudgetSpentAmounts(User user, Category category, LocalDate date) {
@@ -131,11 +175,54 @@ public class BudgetService {
         }
     }
     
-    public void updateAllActiveBudgetSpentAmounts(User user) {
-        List<Budget> activeBudgets = findByUserAndActive(user, true);
-        for (Budget budget : activeBudgets) {
-            updateBudgetSpentAmount(budget);
+    // Shifts the spent amount of every active budget covering the date by a signed expense delta;
+    // deltas are coalesced per unit of work and written once before commit
+    public void applyExpenseDelta(User user, Category category, LocalDate date, BigDecimal delta) {
+        dirtyBudgetSet.add(user, category, date, delta);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Long> findUserIdsWithActiveBudgets(Long afterUserId, int limit) {
+        return budgetRepository.findUserIdsWithActiveBudgets(afterUserId, PageRequest.of(0, limit));
+    }
+    
+    // Re-derives the spent amount of every active budget of the given users from one grouped SUM and
+    // writes back only the amounts that drifted in one JDBC batch. Each write is guarded by the value
+    // read, so a delta committed in between is kept and left for the next run.
+    // Budgets already loaded into the persistence context are not refreshed.
+    public int refreshSpentAmounts(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        dirtyBudgetSet.flush();
+        entityManager.flush();
+        
+        List<BudgetSpentTotal> drifted = budgetRepository
+                .sumSpentTotalsByUserIds(userIds, Transaction.TransactionType.EXPENSE).stream()
+                .filter(BudgetSpentTotal::drifted)
+                .toList();
+        if (drifted.isEmpty()) {
+            return 0;
+        }
+        int[][] updateCounts = jdbcTemplate.batchUpdate(REFRESH_SPENT_SQL, drifted, drifted.size(), (ps, total) -> {
+            ps.setBigDecimal(1, total.total());
+            ps.setLong(2, total.budgetId());
+            ps.setBigDecimal(3, total.storedAmount());
+        });
+        // A single batch holds every row, so the counts line up with the drifted list
+        int[] counts = Arrays.stream(updateCounts).flatMapToInt(Arrays::stream).toArray();
+        List<Long> updated = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                updated.add(drifted.get(i).budgetId());
+            }
         }
+        changeLogService.recordBudgetUpdates(updated);
+        return updated.size();
+    }
+    
+    public void updateAllActiveBudgetSpentAmounts(User user) {
+        refreshSpentAmounts(List.of(user.getId()));
     }
     
     // Budget analysis methods
@@ -159,12 +246,22 @@ public class BudgetService {
         return budgetRepository.countOverBudgetsByUser(user);
     }
     
-    public void deactivateExpiredBudgets(User user) {
-        List<Budget> expiredBudgets = findExpiredBudgets(user);
-        for (Budget budget : expiredBudgets) {
-            budget.setActive(false);
-            budgetRepository.save(budget);
+    public int deactivateExpiredBudgets(User user) {
+        LocalDate today = LocalDate.now();
+        budgetWindowIndex.invalidateAfterCommit(user.getId());
+        changeLogService.recordExpiredBudgets(user.getId(), today);
+        return budgetRepository.deactivateExpiredByUser(user, today, LocalDateTime.now());
+    }
+    
+    // Deactivates up to limit budgets of any user that ended before the given date
+    public int deactivateExpiredBudgets(LocalDate currentDate, int limit) {
+        List<Long> budgetIds = budgetRepository.findExpiredIds(currentDate, PageRequest.of(0, limit));
+        if (budgetIds.isEmpty()) {
+            return 0;
         }
+        budgetWindowIndex.invalidateAfterCommit(budgetRepository.findUserIdsByIds(budgetIds));
+        changeLogService.recordExpiredBudgets(budgetIds, currentDate);
+        return budgetRepository.deactivateExpiredByIds(budgetIds, currentDate, LocalDateTime.now());
     }
     
     public Budget.BudgetPeriod determinePeriodFromDates(LocalDate startDate, LocalDate endDate) {
@@ -182,4 +279,20 @@ public class BudgetService {
             return Budget.BudgetPeriod.CUSTOM;
         }
     }
+    
+    // Inverse of determinePeriodFromDates: the last day of a period starting on startDate
+    public LocalDate determineEndDateFromPeriod(LocalDate startDate, Budget.BudgetPeriod period) {
+        switch (period) {
+            case WEEKLY:
+                return startDate.plusWeeks(1).minusDays(1);
+            case MONTHLY:
+                return startDate.plusMonths(1).minusDays(1);
+            case QUARTERLY:
+                return startDate.plusMonths(3).minusDays(1);
+            case YEARLY:
+                return startDate.plusYears(1).minusDays(1);
+            default:
+                throw new IllegalArgumentException("Budget period " + period + " does not recur");
+        }
+    }
 }
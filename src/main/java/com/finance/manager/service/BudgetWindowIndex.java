@@ -0,0 +1,296 @@
+package com.finance.manager.service;
+
+import com.finance.manager.dto.BudgetWindow;
+import com.finance.manager.entity.BudgetWindowVersion;
+import com.finance.manager.repository.BudgetRepository;
+import com.finance.manager.repository.BudgetWindowVersionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.ref.SoftReference;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory index of the active budget windows of each user, answering which budgets of a
+ * category cover a date without a database range scan. A user's windows are loaded with one query
+ * on first use and dropped whenever one of their budgets changes; entries are held through soft
+ * references so the collector can reclaim them under memory pressure, and the least recently used
+ * user is evicted once the size limit is reached.
+ *
+ * Every budget change also bumps the user's {@link BudgetWindowVersion} row in the writing
+ * transaction, creating the row there if it is missing. {@link #windowsOf} reads that version by
+ * primary key and reloads when it no longer matches the cached windows, so a change committed on
+ * another node is seen by the next unit of work; the {@link UserWindows} it returns then answer
+ * any number of lookups from memory.
+ * Local invalidation follows {@link CategoryCache}: a generation counter keeps a load that raced a
+ * change from storing the old windows.
+ */
+@Component
+public class BudgetWindowIndex {
+
+    // Through JDBC, so that losing the race to create a row only fails this statement
+    private static final String INSERT_VERSION_SQL = "INSERT INTO budget_window_versions (user_id, version) VALUES (?, ?)";
+
+    /**
+     * Windows of one category sorted by start date. maxEnds[i] is the latest end date among the
+     * first i + 1 windows, so a lookup binary-searches the last window starting on or before the
+     * date and walks back only while an earlier window can still reach it.
+     */
+    static final class CategoryWindows {
+
+        private final long[] budgetIds;
+        private final LocalDate[] starts;
+        private final LocalDate[] ends;
+        private final LocalDate[] maxEnds;
+
+        CategoryWindows(List<BudgetWindow> windows) {
+            BudgetWindow[] sorted = windows.toArray(new BudgetWindow[0]);
+            Arrays.sort(sorted, Comparator.comparing(BudgetWindow::startDate));
+            budgetIds = new long[sorted.length];
+            starts = new LocalDate[sorted.length];
+            ends = new LocalDate[sorted.length];
+            maxEnds = new LocalDate[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                budgetIds[i] = sorted[i].budgetId();
+                starts[i] = sorted[i].startDate();
+                ends[i] = sorted[i].endDate();
+                maxEnds[i] = i == 0 || ends[i].isAfter(maxEnds[i - 1]) ? ends[i] : maxEnds[i - 1];
+            }
+        }
+
+        List<Long> covering(LocalDate date) {
+            int low = 0;
+            int high = starts.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid].isAfter(date)) {
+                    high = mid - 1;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            List<Long> covering = new ArrayList<>(2);
+            for (int i = high; i >= 0 && !maxEnds[i].isBefore(date); i--) {
+                if (!ends[i].isBefore(date)) {
+                    covering.add(budgetIds[i]);
+                }
+            }
+            return covering;
+        }
+    }
+
+    // The windows of one user, current as of the version read when they were obtained
+    public static final class UserWindows {
+
+        private final Map<Long, CategoryWindows> byCategory;
+
+        UserWindows(Map<Long, CategoryWindows> byCategory) {
+            this.byCategory = byCategory;
+        }
+
+        // Ids of the active budgets of the category whose window contains the date
+        public List<Long> findCovering(Long categoryId, LocalDate date) {
+            CategoryWindows windows = byCategory.get(categoryId);
+            return windows != null ? windows.covering(date) : List.of();
+        }
+    }
+
+    private record Entry(SoftReference<UserWindows> windows, long version) {
+    }
+
+    private final BudgetRepository budgetRepository;
+    private final BudgetWindowVersionRepository budgetWindowVersionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxUsers;
+    private final Map<Long, Entry> entries;
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BudgetWindowIndex(BudgetRepository budgetRepository,
+                             BudgetWindowVersionRepository budgetWindowVersionRepository,
+                             JdbcTemplate jdbcTemplate,
+                             @Value("${finance.budgets.window-index.max-users:10000}") int maxUsers,
+                             MeterRegistry meterRegistry) {
+        this.budgetRepository = budgetRepository;
+        this.budgetWindowVersionRepository = budgetWindowVersionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxUsers = maxUsers;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > BudgetWindowIndex.this.maxUsers) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        new Metrics(this).bindTo(meterRegistry);
+    }
+
+    // Ids of the active budgets of the user's category whose window contains the date
+    public List<Long> findCovering(Long userId, Long categoryId, LocalDate date) {
+        return windowsOf(userId).findCovering(categoryId, date);
+    }
+
+    // Checks the user's version once; callers resolving many dates of one user should keep the result
+    public UserWindows windowsOf(Long userId) {
+        // Read before any load, so newer windows may be kept under an older version but never the reverse
+        Long version = budgetWindowVersionRepository.findVersionByUserId(userId).orElse(null);
+        UserWindows windows = null;
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry != null) {
+                windows = entry.windows().get();
+                if (windows == null || version == null || entry.version() != version) {
+                    entries.remove(userId);
+                    evictions.increment();
+                    windows = null;
+                }
+            }
+        }
+        if (windows != null) {
+            hits.increment();
+            return windows;
+        }
+
+        misses.increment();
+        if (version == null && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // Without a version row no node could see this user's changes; created with the caller's transaction
+            createVersion(userId, 0);
+        }
+        long loadGeneration = generation.get();
+        Map<Long, List<BudgetWindow>> byCategory = new HashMap<>();
+        for (BudgetWindow window : budgetRepository.findActiveWindowsByUserId(userId)) {
+            byCategory.computeIfAbsent(window.categoryId(), id -> new ArrayList<>()).add(window);
+        }
+        Map<Long, CategoryWindows> categoryWindows = new HashMap<>();
+        byCategory.forEach((categoryId, windowsOfCategory) -> categoryWindows.put(categoryId, new CategoryWindows(windowsOfCategory)));
+        UserWindows loaded = new UserWindows(categoryWindows);
+        synchronized (entries) {
+            if (version != null && generation.get() == loadGeneration) {
+                entries.put(userId, new Entry(new SoftReference<>(loaded), version));
+                puts.increment();
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidateAfterCommit(Long userId) {
+        invalidateAfterCommit(Set.of(userId));
+    }
+
+    // Bumps the users' versions in the current transaction for the other nodes, and drops their
+    // windows here now and again once the change is committed or rolled back
+    public void invalidateAfterCommit(Collection<Long> userIds) {
+        Set<Long> distinct = new HashSet<>(userIds);
+        if (distinct.isEmpty()) {
+            return;
+        }
+        if (budgetWindowVersionRepository.incrementAll(distinct) < distinct.size()) {
+            Set<Long> missing = new HashSet<>(distinct);
+            budgetWindowVersionRepository.findUserIdsIn(distinct).forEach(missing::remove);
+            for (Long userId : missing) {
+                if (!createVersion(userId, 1)) {
+                    budgetWindowVersionRepository.increment(userId);
+                }
+            }
+        }
+        invalidate(distinct);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(distinct);
+                }
+            });
+        }
+    }
+
+    // Returns false when another transaction created the row first
+    private boolean createVersion(Long userId, long version) {
+        try {
+            jdbcTemplate.update(INSERT_VERSION_SQL, userId, version);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private void invalidate(Collection<Long> userIds) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.keySet().removeAll(userIds);
+        }
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static class Metrics extends CacheMeterBinder<BudgetWindowIndex> {
+
+        Metrics(BudgetWindowIndex index) {
+            super(index, "budget-windows", Tags.empty());
+        }
+
+        @Override
+        protected Long size() {
+            BudgetWindowIndex index = getCache();
+            return index != null ? (long) index.size() : null;
+        }
+
+        @Override
+        protected long hitCount() {
+            BudgetWindowIndex index = getCache();
+            return index != null ? index.hits.sum() : 0;
+        }
+
+        @Override
+        protected Long missCount() {
+            BudgetWindowIndex index = getCache();
+            return index != null ? index.misses.sum() : null;
+        }
+
+        @Override
+        protected Long evictionCount() {
+            BudgetWindowIndex index = getCache();
+            return index != null ? index.evictions.sum() : null;
+        }
+
+        @Override
+        protected long putCount() {
+            BudgetWindowIndex index = getCache();
+            return index != null ? index.puts.sum() : 0;
+        }
+
+        @Override
+        protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.finance.manager.service;
+
+import com.finance.manager.entity.Category;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded per-user cache of category lists, ordered by type and name. Entries expire after a
+ * TTL and the least recently used user is evicted once the size limit is reached.
+ *
+ * Writers call {@link #invalidateAfterCommit}. Every invalidation bumps a generation counter,
+ * and a load only stores its result if no invalidation happened while it was reading, so a
+ * reader that raced a commit cannot put the old list back. Loads run in a read-only transaction
+ * of their own that starts after the generation is read, so they see every change invalidated
+ * before it at any isolation level; the caller's transaction may hold an older snapshot. Only a
+ * writer reading its own uncommitted changes loads in its transaction, and never stores the result.
+ *
+ * Concurrent misses for a user share one load, so a burst of them takes one pooled connection
+ * per user rather than one per request. A miss only joins a load that read the generation after
+ * it did, so joining never returns a list older than loading itself would.
+ */
+@Component
+public class CategoryCache {
+
+    private record Entry(List<Category> categories, long loadedAt) {
+    }
+
+    private record Load(long generation, CompletableFuture<List<Category>> result) {
+    }
+
+    private final TransactionTemplate loadTransaction;
+    private final int maxUsers;
+    private final long ttlNanos;
+    private final Map<Long, Entry> entries;
+    private final AtomicLong generation = new AtomicLong();
+    private final ConcurrentHashMap<Long, Load> loads = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CategoryCache(@Value("${finance.categories.cache.max-users:1000}") int maxUsers,
+                         @Value("${finance.categories.cache.ttl:10m}") Duration ttl,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.loadTransaction.setReadOnly(true);
+        this.maxUsers = maxUsers;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > CategoryCache.this.maxUsers) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        new Metrics(this).bindTo(meterRegistry);
+    }
+
+    public List<Category> get(Long userId, Supplier<List<Category>> loader) {
+        if (invalidatedInTransaction(userId)) {
+            misses.increment();
+            return List.copyOf(loader.get());
+        }
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(userId);
+            if (entry != null && System.nanoTime() - entry.loadedAt() > ttlNanos) {
+                entries.remove(userId);
+                evictions.increment();
+                entry = null;
+            }
+        }
+        if (entry != null) {
+            hits.increment();
+            return entry.categories();
+        }
+
+        misses.increment();
+        long loadGeneration = generation.get();
+        Load load = new Load(loadGeneration, new CompletableFuture<>());
+        Load inFlight = loads.merge(userId, load,
+                (existing, created) -> existing.generation() >= loadGeneration ? existing : created);
+        if (inFlight != load) {
+            return join(inFlight.result());
+        }
+        try {
+            List<Category> categories = loadTransaction.execute(status -> List.copyOf(loader.get()));
+            synchronized (entries) {
+                if (generation.get() == loadGeneration) {
+                    entries.put(userId, new Entry(categories, System.nanoTime()));
+                    puts.increment();
+                }
+            }
+            load.result().complete(categories);
+            return categories;
+        } catch (RuntimeException | Error e) {
+            load.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(userId, load);
+        }
+    }
+
+    // Rethrows the failure of the shared load as the loading thread saw it
+    private static List<Category> join(CompletableFuture<List<Category>> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Drops the entry now, and again once the change is visible to others; until then the writer's
+    // own reads of the user load in its transaction
+    @SuppressWarnings("unchecked")
+    public void invalidateAfterCommit(Long userId) {
+        invalidate(userId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Set<Long> userIds = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (userIds == null) {
+            Set<Long> created = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    created.forEach(CategoryCache.this::invalidate);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CategoryCache.this);
+                }
+            });
+            userIds = created;
+        }
+        userIds.add(userId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean invalidatedInTransaction(Long userId) {
+        Set<Long> userIds = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        return userIds != null && userIds.contains(userId);
+    }
+
+    private void invalidate(Long userId) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(userId);
+        }
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static class Metrics extends CacheMeterBinder<CategoryCache> {
+
+        Metrics(CategoryCache cache) {
+            super(cache, "categories", Tags.empty());
+        }
+
+        @Override
+        protected Long size() {
+            CategoryCache cache = getCache();
+            return cache != null ? (long) cache.size() : null;
+        }
+
+        @Override
+        protected long hitCount() {
+            CategoryCache cache = getCache();
+            return cache != null ? cache.hits.sum() : 0;
+        }
+
+        @Override
+        protected Long missCount() {
+            CategoryCache cache = getCache();
+            return cache != null ? cache.misses.sum() : null;
+        }
+
+        @Override
+        protected Long evictionCount() {
+            CategoryCache cache = getCache();
+            return cache != null ? cache.evictions.sum() : null;
+        }
+
+        @Override
+        protected long putCount() {
+            CategoryCache cache = getCache();
+            return cache != null ? cache.puts.sum() : 0;
+        }
+
+        @Override
+        protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.finance.manager.service;
 
 import com.finance.manager.entity.Category;
+import com.finance.manager.entity.ChangeLogEntry;
 import com.finance.manager.entity.User;
 import com.finance.manager.repository.CategoryRepository;
+import com.finance.manager.repository.MonthlyRollupRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -17,6 +20,24 @@ public class CategoryService {
     @Autowired
     private CategoryRepository categoryRepository;
     
+    @Autowired
+    private MonthlyRollupRepository monthlyRollupRepository;
+    
+    @Autowired
+    private TransactionSearchService transactionSearchService;
+    
+    @Autowired
+    private TransactionAnalyticsService transactionAnalyticsService;
+    
+    @Autowired
+    private CategoryCache categoryCache;
+    
+    @Autowired
+    private BudgetWindowIndex budgetWindowIndex;
+    
+    @Autowired
+    private ChangeLogService changeLogService;
+    
     public List<Category> findAll() {
         return categoryRepository.findAll();
     }
@@ -29,24 +50,38 @@ public class CategoryService {
         return categoryRepository.findByUser(user);
     }
     
+    // Served from the category cache; the type-filtered lists below are cut from the same entry.
+    // These reads join a caller's transaction but never start one, so a miss holds only the
+    // connection of the cache's own load
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Category> findByUserOrderByTypeAndName(User user) {
-        return categoryRepository.findByUserOrderByTypeAndName(user);
+        return categoryCache.get(user.getId(), () -> categoryRepository.findByUserOrderByTypeAndName(user));
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Category> findByUserAndType(User user, Category.CategoryType type) {
-        return categoryRepository.findByUserAndType(user, type);
+        return findByUserAndTypeOrderByName(user, type);
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Category> findByUserAndTypeOrderByName(User user, Category.CategoryType type) {
-        return categoryRepository.findByUserAndTypeOrderByName(user, type);
+        return findByUserOrderByTypeAndName(user).stream()
+                .filter(category -> category.getType() == type)
+                .toList();
     }
     
     public Optional<Category> findByUserAndName(User user, String name) {
         return categoryRepository.findByUserAndName(user, name);
     }
     
+    // Every create and update goes through here, including createDefaultCategories
     public Category save(Category category) {
-        return categoryRepository.save(category);
+        boolean created = category.getId() == null;
+        Category saved = categoryRepository.save(category);
+        categoryCache.invalidateAfterCommit(saved.getUser().getId());
+        changeLogService.record(saved.getUser().getId(), ChangeLogEntry.EntityType.CATEGORY, saved.getId(),
+                created ? ChangeLogEntry.Operation.INSERT : ChangeLogEntry.Operation.UPDATE);
+        return saved;
     }
     
     public Category createCategory(String name, String description, Category.CategoryType type, User user) {
@@ -83,6 +118,17 @@ public class CategoryService {
     }
     
     public void deleteCategory(Long id) {
+        // Transactions are removed by cascade, so their rollups and search entries go with the category
+        categoryRepository.findById(id).ifPresent(category -> {
+            monthlyRollupRepository.deleteByCategory(category);
+            transactionSearchService.invalidateAfterCommit(category.getUser().getId());
+            transactionAnalyticsService.invalidateAfterCommit(category.getUser().getId());
+            categoryCache.invalidateAfterCommit(category.getUser().getId());
+            budgetWindowIndex.invalidateAfterCommit(category.getUser().getId());
+            changeLogService.recordCategoryCascade(id);
+            changeLogService.record(category.getUser().getId(), ChangeLogEntry.EntityType.CATEGORY,
+                    id, ChangeLogEntry.Operation.DELETE);
+        });
         categoryRepository.deleteById(id);
     }
     
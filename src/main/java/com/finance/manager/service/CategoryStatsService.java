@@ -0,0 +1,37 @@
+package com.finance.manager.service;
+
+import com.finance.manager.dto.CategoryStats;
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.Transaction;
+import com.finance.manager.entity.User;
+import com.finance.manager.repository.MonthlyRollupRepository;
+import com.finance.manager.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Figures for the category detail page. Aggregates come from the monthly rollups in one query,
+ * so the cost does not grow with the number of transactions in the category.
+ */
+@Service
+@Transactional(readOnly = true)
+public class CategoryStatsService {
+    
+    @Autowired
+    private MonthlyRollupRepository monthlyRollupRepository;
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    public CategoryStats getStats(User user, Category category) {
+        return monthlyRollupRepository.summarizeByUserAndCategory(user, category, LocalDate.now().withDayOfMonth(1));
+    }
+    
+    public List<Transaction> getRecentTransactions(User user, Category category) {
+        return transactionRepository.findTop10ByUserAndCategoryOrderByDateDescIdDesc(user, category);
+    }
+}
@@ -0,0 +1,89 @@
+package com.finance.manager.service;
+
+import com.finance.manager.entity.JobLock;
+import com.finance.manager.repository.JobLockRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gives committed change log entries their feed seq. Entries are written without one, and a
+ * publisher numbers the unpublished entries it can see in id order, continuing from the highest
+ * seq handed out so far, while holding a row lock on its job lock. Publishers therefore run one at
+ * a time and each only sees entries that have committed, so seqs become visible strictly in order:
+ * once a consumer has read seq n, no entry with a smaller seq can appear later.
+ *
+ * The highest seq is kept on the job lock row rather than read from the log, so pruning every
+ * entry does not restart numbering below a consumer's cursor.
+ *
+ * Publishing runs on a schedule only, never on a feed read, so a poll does not pay for numbering
+ * other users' entries; a feed lags behind the committed writes by about the publish interval.
+ */
+@Service
+public class ChangeLogPublisher {
+
+    private static final String LOCK_NAME = "change-log-publisher";
+
+    // Only read while the lock row has no seq yet, i.e. once on a log written before it kept one
+    private static final String LAST_SEQ_SQL = "SELECT COALESCE(MAX(seq), 0) FROM change_log";
+
+    private static final String UNPUBLISHED_SQL = "SELECT id FROM change_log WHERE seq IS NULL ORDER BY id LIMIT ?";
+
+    private static final String PUBLISH_SQL = "UPDATE change_log SET seq = ? WHERE id = ?";
+
+    @Autowired
+    private JobLockService jobLockService;
+
+    @Autowired
+    private JobLockRepository jobLockRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${finance.changes.publish-batch-size:5000}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${finance.changes.publish-interval:PT1S}")
+    public void publishScheduled() {
+        publishPending();
+    }
+
+    // Publishes every entry committed so far, one batch per transaction; returns how many were published
+    public int publishPending() {
+        jobLockService.createIfAbsent(LOCK_NAME);
+        int total = 0;
+        int published;
+        do {
+            published = transactionTemplate.execute(status -> publishBatch());
+            total += published;
+        } while (published == batchSize);
+        return total;
+    }
+
+    private int publishBatch() {
+        // Taken before anything is read, so the highest seq seen is the last publisher's committed one
+        JobLock lock = jobLockRepository.lockForTransaction(LOCK_NAME).orElseThrow();
+        List<Long> ids = jdbcTemplate.queryForList(UNPUBLISHED_SQL, Long.class, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long lastSeq = lock.getLastSeq() != null ? lock.getLastSeq() : jdbcTemplate.queryForObject(LAST_SEQ_SQL, Long.class);
+        List<Object[]> seqs = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            seqs.add(new Object[] {lastSeq + 1 + i, ids.get(i)});
+        }
+        jdbcTemplate.batchUpdate(PUBLISH_SQL, seqs);
+        // Flushed on commit, still under the row lock
+        lock.setLastSeq(lastSeq + ids.size());
+        return ids.size();
+    }
+}
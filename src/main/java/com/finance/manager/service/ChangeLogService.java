@@ -0,0 +1,210 @@
+package com.finance.manager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.finance.manager.dto.ChangeEvent;
+import com.finance.manager.entity.ChangeLogEntry;
+import com.finance.manager.repository.ChangeLogRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Append-only change log of the inserts, updates and deletes made through the transaction,
+ * budget and category services, written in the same database transaction as the change.
+ *
+ * Changes are collected per unit of work and inserted in one batch just before commit. Entries
+ * get their feed seq from {@link ChangeLogPublisher} only after they have committed, and the feed
+ * serves published entries only, so a consumer's cursor can never skip past an entry that
+ * commits later. Bulk changes log their rows with an INSERT ... SELECT
+ * issued through JDBC before the bulk statement itself, so no second-level cache region is evicted.
+ *
+ * Every change to a budget's spent amount is logged as a BUDGET UPDATE, whether it comes from a
+ * transaction write, a budget impact drain, an import or a reconciliation.
+ */
+@Service
+@Transactional
+public class ChangeLogService {
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO change_log (user_id, entity_type, entity_id, operation, changed_at) VALUES (?, ?, ?, ?, ?)";
+    
+    // Bulk statements log the rows they are about to change with an INSERT ... SELECT in the same transaction
+    private static final String LOG_TRANSACTION_DELETES_BY_CATEGORY_SQL =
+            "INSERT INTO change_log (user_id, entity_type, entity_id, operation, changed_at) " +
+            "SELECT t.user_id, 'TRANSACTION', t.id, 'DELETE', ? FROM transactions t WHERE t.category_id = ? ORDER BY t.id";
+    
+    private static final String LOG_BUDGET_DELETES_BY_CATEGORY_SQL =
+            "INSERT INTO change_log (user_id, entity_type, entity_id, operation, changed_at) " +
+            "SELECT b.user_id, 'BUDGET', b.id, 'DELETE', ? FROM budgets b WHERE b.category_id = ? ORDER BY b.id";
+    
+    private static final String LOG_BUDGET_UPDATE_BY_ID_SQL =
+            "INSERT INTO change_log (user_id, entity_type, entity_id, operation, changed_at) " +
+            "SELECT b.user_id, 'BUDGET', b.id, 'UPDATE', ? FROM budgets b WHERE b.id = ?";
+    
+    private static final String LOG_EXPIRED_BUDGET_BY_ID_SQL =
+            "INSERT INTO change_log (user_id, entity_type, entity_id, operation, changed_at) " +
+            "SELECT b.user_id, 'BUDGET', b.id, 'UPDATE', ? FROM budgets b " +
+            "WHERE b.id = ? AND b.active = true AND b.end_date < ?";
+    
+    private static final String LOG_EXPIRED_BUDGETS_BY_USER_SQL =
+            "INSERT INTO change_log (user_id, entity_type, entity_id, operation, changed_at) " +
+            "SELECT b.user_id, 'BUDGET', b.id, 'UPDATE', ? FROM budgets b " +
+            "WHERE b.user_id = ? AND b.active = true AND b.end_date < ? ORDER BY b.id";
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private record Change(Long userId, ChangeLogEntry.EntityType entityType, Long entityId,
+                          ChangeLogEntry.Operation operation) {}
+    
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${finance.changes.page-size:500}")
+    private int pageSize;
+    
+    public void record(Long userId, ChangeLogEntry.EntityType entityType, Long entityId, ChangeLogEntry.Operation operation) {
+        Change change = new Change(userId, entityType, entityId, operation);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            insert(List.of(change));
+            return;
+        }
+        pending().add(change);
+    }
+    
+    // The category's transactions and budgets are removed by cascade
+    public void recordCategoryCascade(Long categoryId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        entityManager.flush();
+        jdbcTemplate.update(LOG_TRANSACTION_DELETES_BY_CATEGORY_SQL, now, categoryId);
+        jdbcTemplate.update(LOG_BUDGET_DELETES_BY_CATEGORY_SQL, now, categoryId);
+    }
+    
+    public void recordBudgetUpdates(Collection<Long> budgetIds) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(LOG_BUDGET_UPDATE_BY_ID_SQL, budgetIds, budgetIds.size(), (ps, budgetId) -> {
+            ps.setTimestamp(1, now);
+            ps.setLong(2, budgetId);
+        });
+    }
+    
+    // Must run before the matching bulk deactivation
+    public void recordExpiredBudgets(Collection<Long> budgetIds, LocalDate currentDate) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        entityManager.flush();
+        jdbcTemplate.batchUpdate(LOG_EXPIRED_BUDGET_BY_ID_SQL, budgetIds, budgetIds.size(), (ps, budgetId) -> {
+            ps.setTimestamp(1, now);
+            ps.setLong(2, budgetId);
+            ps.setDate(3, Date.valueOf(currentDate));
+        });
+    }
+    
+    public void recordExpiredBudgets(Long userId, LocalDate currentDate) {
+        entityManager.flush();
+        jdbcTemplate.update(LOG_EXPIRED_BUDGETS_BY_USER_SQL, Timestamp.valueOf(LocalDateTime.now()), userId, Date.valueOf(currentDate));
+    }
+    
+    /**
+     * Writes up to limit of the user's published changes after the given seq as NDJSON, in seq
+     * order, reading them in pages. Returns the number of events written.
+     */
+    @Transactional(readOnly = true)
+    public long stream(Long userId, long since, int limit, OutputStream target) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+        SequenceWriter json = objectMapper.writer().withRootValueSeparator("\n").writeValues(writer);
+        
+        long written = 0;
+        long cursor = since;
+        while (written < limit) {
+            int requested = (int) Math.min(pageSize, limit - written);
+            List<ChangeEvent> page = changeLogRepository.findEventsAfter(userId, cursor, PageRequest.of(0, requested));
+            for (ChangeEvent event : page) {
+                json.write(event);
+            }
+            json.flush();
+            written += page.size();
+            if (page.size() < requested) {
+                break;
+            }
+            cursor = page.get(page.size() - 1).seq();
+        }
+        if (written > 0) {
+            writer.write('\n');
+        }
+        writer.flush();
+        return written;
+    }
+    
+    // Deletes up to limit published entries changed before the cutoff and returns how many were deleted
+    public int pruneChangedBefore(LocalDateTime cutoff, int limit) {
+        List<Long> ids = changeLogRepository.findPublishedIdsChangedBefore(cutoff, PageRequest.of(0, limit));
+        return ids.isEmpty() ? 0 : changeLogRepository.deleteByIds(ids);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private List<Change> pending() {
+        List<Change> pending = (List<Change>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<Change> created = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    insert(created);
+                    created.clear();
+                }
+                
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeLogService.this);
+                }
+            });
+            pending = created;
+        }
+        return pending;
+    }
+    
+    private void insert(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, changes, changes.size(), (ps, change) -> {
+            ps.setLong(1, change.userId());
+            ps.setString(2, change.entityType().name());
+            ps.setLong(3, change.entityId());
+            ps.setString(4, change.operation().name());
+            ps.setTimestamp(5, now);
+        });
+    }
+}
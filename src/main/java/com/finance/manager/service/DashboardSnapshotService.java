@@ -0,0 +1,118 @@
+package com.finance.manager.service;
+
+import com.finance.manager.dto.DashboardSnapshot;
+import com.finance.manager.dto.MonthlyTypeTotal;
+import com.finance.manager.dto.TypeTotal;
+import com.finance.manager.entity.Budget;
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.Transaction;
+import com.finance.manager.entity.User;
+import com.finance.manager.repository.BudgetRepository;
+import com.finance.manager.repository.CategoryRepository;
+import com.finance.manager.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the dashboard figures from a fixed set of grouped queries instead of one
+ * SUM/COUNT query per card and per chart month.
+ */
+@Service
+@Transactional(readOnly = true)
+public class DashboardSnapshotService {
+    
+    private static final DateTimeFormatter CHART_LABEL_FORMAT = DateTimeFormatter.ofPattern("MMM yyyy");
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private MonthlyRollupService monthlyRollupService;
+    
+    @Autowired
+    private BudgetRepository budgetRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    public DashboardSnapshot getSnapshot(User user, int chartMonths) {
+        LocalDate today = LocalDate.now();
+        YearMonth currentMonth = YearMonth.from(today);
+        
+        // Lifetime totals and chart series come from the monthly rollups
+        BigDecimal totalIncome = BigDecimal.ZERO;
+        BigDecimal totalExpense = BigDecimal.ZERO;
+        Map<YearMonth, BigDecimal> incomeByMonth = new HashMap<>();
+        Map<YearMonth, BigDecimal> expenseByMonth = new HashMap<>();
+        
+        for (MonthlyTypeTotal row : monthlyRollupService.getMonthlyTotals(user)) {
+            YearMonth month = YearMonth.from(row.periodStart());
+            if (row.type() == Transaction.TransactionType.INCOME) {
+                totalIncome = totalIncome.add(row.total());
+                incomeByMonth.merge(month, row.total(), BigDecimal::add);
+            } else {
+                totalExpense = totalExpense.add(row.total());
+                expenseByMonth.merge(month, row.total(), BigDecimal::add);
+            }
+        }
+        
+        // The month-to-date cards stop at today, so they cannot use the current month's rollup as-is
+        Map<Transaction.TransactionType, TypeTotal> monthToDate =
+                monthlyRollupService.getTotalsByType(user, currentMonth.atDay(1), today);
+        TypeTotal monthlyIncome = monthToDate.get(Transaction.TransactionType.INCOME);
+        TypeTotal monthlyExpense = monthToDate.get(Transaction.TransactionType.EXPENSE);
+        
+        List<String> chartLabels = new ArrayList<>();
+        List<BigDecimal> chartIncome = new ArrayList<>();
+        List<BigDecimal> chartExpense = new ArrayList<>();
+        for (int i = chartMonths - 1; i >= 0; i--) {
+            YearMonth month = currentMonth.minusMonths(i);
+            chartLabels.add(month.atDay(1).format(CHART_LABEL_FORMAT));
+            chartIncome.add(incomeByMonth.getOrDefault(month, BigDecimal.ZERO));
+            chartExpense.add(expenseByMonth.getOrDefault(month, BigDecimal.ZERO));
+        }
+        
+        // Budget totals are derived from the active budget list the page renders anyway
+        List<Budget> activeBudgets = budgetRepository.findByUserAndActive(user, true);
+        BigDecimal totalBudgetAmount = BigDecimal.ZERO;
+        BigDecimal totalSpentAmount = BigDecimal.ZERO;
+        List<Budget> overBudgets = new ArrayList<>();
+        for (Budget budget : activeBudgets) {
+            totalBudgetAmount = totalBudgetAmount.add(budget.getAmount());
+            totalSpentAmount = totalSpentAmount.add(budget.getSpentAmount());
+            if (budget.isOverBudget()) {
+                overBudgets.add(budget);
+            }
+        }
+        
+        long incomeCategoryCount = 0;
+        long expenseCategoryCount = 0;
+        for (Object[] row : categoryRepository.countByUserGroupedByType(user)) {
+            if (row[0] == Category.CategoryType.INCOME) {
+                incomeCategoryCount = (Long) row[1];
+            } else if (row[0] == Category.CategoryType.EXPENSE) {
+                expenseCategoryCount = (Long) row[1];
+            }
+        }
+        
+        List<Transaction> recentTransactions = transactionRepository.findTop5ByUserOrderByDateDesc(user);
+        
+        return new DashboardSnapshot(
+                monthlyIncome.total(), monthlyExpense.total(), monthlyIncome.count() + monthlyExpense.count(),
+                totalIncome, totalExpense,
+                recentTransactions, activeBudgets, overBudgets,
+                totalBudgetAmount, totalSpentAmount,
+                incomeCategoryCount, expenseCategoryCount,
+                chartLabels, chartIncome, chartExpense);
+    }
+}
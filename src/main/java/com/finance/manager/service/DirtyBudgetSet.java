@@ -0,0 +1,135 @@
+package com.finance.manager.service;
+
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.User;
+import com.finance.manager.repository.BudgetRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Collects the expense deltas of a unit of work per (user, category, date) and writes them to the
+ * covering budgets once, just before commit. A budget touched by many writes in one transaction
+ * therefore gets a single UPDATE, and deltas that cancel out (an edit that keeps amount, date and
+ * category) cost nothing.
+ *
+ * The budgets covering each date come from the {@link BudgetWindowIndex}, so no range scan is
+ * needed and the user's windows are checked against the database once per flush; each budget is
+ * shifted by the sum of the deltas falling inside its window through an UPDATE by primary key.
+ * Each budget moved is logged as a BUDGET UPDATE in the change log, and the applied deltas are
+ * handed to {@link BudgetAlertService} to detect alert threshold crossings.
+ *
+ * With async budget impacts enabled, the coalesced delta of each budget is instead recorded in
+ * the {@link BudgetImpactQueue} outbox and applied after commit.
+ */
+@Component
+public class DirtyBudgetSet {
+
+    private record Scope(Long userId, Long categoryId) {
+    }
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private BudgetWindowIndex budgetWindowIndex;
+
+    @Autowired
+    private BudgetAlertService budgetAlertService;
+
+    @Autowired
+    private BudgetImpactQueue budgetImpactQueue;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    public void add(User user, Category category, LocalDate date, BigDecimal delta) {
+        Scope scope = new Scope(user.getId(), category.getId());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(new LinkedHashMap<>(Map.of(scope, new TreeMap<>(Map.of(date, delta)))));
+            return;
+        }
+        pending().computeIfAbsent(scope, key -> new TreeMap<>()).merge(date, delta, BigDecimal::add);
+    }
+
+    // Applies the deltas collected so far, for callers about to read or overwrite spent amounts
+    @SuppressWarnings("unchecked")
+    public void flush() {
+        Map<Scope, NavigableMap<LocalDate, BigDecimal>> pending =
+                (Map<Scope, NavigableMap<LocalDate, BigDecimal>>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            apply(pending);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Scope, NavigableMap<LocalDate, BigDecimal>> pending() {
+        Map<Scope, NavigableMap<LocalDate, BigDecimal>> pending =
+                (Map<Scope, NavigableMap<LocalDate, BigDecimal>>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<Scope, NavigableMap<LocalDate, BigDecimal>> created = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    apply(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DirtyBudgetSet.this);
+                }
+            });
+            pending = created;
+        }
+        return pending;
+    }
+
+    private void apply(Map<Scope, NavigableMap<LocalDate, BigDecimal>> pending) {
+        Set<Long> userIds = new HashSet<>();
+        Map<Long, BigDecimal> applied = new HashMap<>();
+        Map<Long, BudgetWindowIndex.UserWindows> windowsByUser = new HashMap<>();
+        for (Map.Entry<Scope, NavigableMap<LocalDate, BigDecimal>> entry : pending.entrySet()) {
+            Scope scope = entry.getKey();
+            Map<Long, BigDecimal> budgetDeltas = new LinkedHashMap<>();
+            for (Map.Entry<LocalDate, BigDecimal> delta : entry.getValue().entrySet()) {
+                if (delta.getValue().signum() == 0) {
+                    continue;
+                }
+                BudgetWindowIndex.UserWindows windows = windowsByUser.computeIfAbsent(scope.userId(), budgetWindowIndex::windowsOf);
+                for (Long budgetId : windows.findCovering(scope.categoryId(), delta.getKey())) {
+                    budgetDeltas.merge(budgetId, delta.getValue(), BigDecimal::add);
+                }
+            }
+            if (budgetImpactQueue.isAsync()) {
+                budgetDeltas.forEach((budgetId, delta) -> {
+                    if (delta.signum() != 0) {
+                        budgetImpactQueue.enqueue(scope.userId(), budgetId, delta);
+                    }
+                });
+                continue;
+            }
+            budgetDeltas.forEach((budgetId, delta) -> {
+                if (delta.signum() != 0 && budgetRepository.addToSpentAmountById(budgetId, delta) > 0) {
+                    applied.put(budgetId, delta);
+                    userIds.add(scope.userId());
+                }
+            });
+        }
+        pending.clear();
+        changeLogService.recordBudgetUpdates(applied.keySet());
+        budgetAlertService.detectCrossings(userIds, applied);
+    }
+}
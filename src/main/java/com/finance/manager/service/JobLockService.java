@@ -0,0 +1,53 @@
+package com.finance.manager.service;
+
+import com.finance.manager.entity.JobLock;
+import com.finance.manager.repository.JobLockRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Database-backed lock that lets only one node run a scheduled job at a time. A lock is taken
+ * with a conditional UPDATE on its row and expires after lockAtMostFor, so a node that dies while
+ * holding it blocks the job for at most that long.
+ *
+ * Each call runs in its own transaction, so the lock is visible to other nodes as soon as it is taken.
+ */
+@Service
+public class JobLockService {
+    
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+    
+    @Autowired
+    private JobLockRepository jobLockRepository;
+    
+    public boolean tryLock(String name, Duration lockAtMostFor) {
+        LocalDateTime now = LocalDateTime.now();
+        createIfAbsent(name, now);
+        return jobLockRepository.acquire(name, owner, now, now.plus(lockAtMostFor)) == 1;
+    }
+    
+    // Creates the lock's row, so that it can also be taken as a row lock with lockForTransaction
+    public void createIfAbsent(String name) {
+        createIfAbsent(name, LocalDateTime.now());
+    }
+    
+    private void createIfAbsent(String name, LocalDateTime now) {
+        if (!jobLockRepository.existsById(name)) {
+            try {
+                jobLockRepository.saveAndFlush(new JobLock(name, now));
+            } catch (DataIntegrityViolationException e) {
+                // Another node created the row first; fall through and compete for it
+            }
+        }
+    }
+    
+    public void unlock(String name) {
+        jobLockRepository.release(name, owner, LocalDateTime.now());
+    }
+}
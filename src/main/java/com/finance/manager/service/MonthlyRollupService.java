@@ -0,0 +1,249 @@
+package com.finance.manager.service;
+
+import com.finance.manager.dto.CategoryTypeTotal;
+import com.finance.manager.dto.MonthlyTypeTotal;
+import com.finance.manager.dto.TypeTotal;
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.MonthlyRollup;
+import com.finance.manager.entity.Transaction;
+import com.finance.manager.entity.User;
+import com.finance.manager.repository.CategoryRepository;
+import com.finance.manager.repository.MonthlyRollupRepository;
+import com.finance.manager.repository.TransactionRepository;
+import com.finance.manager.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains per (user, month, category, type) sums of transactions and answers range totals
+ * from them. Whole months inside a range are read from the rollups; only the partial months
+ * at either edge of the range fall back to the transactions table.
+ */
+@Service
+@Transactional
+public class MonthlyRollupService {
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO monthly_rollups (user_id, period_start, category_id, type, total_amount, transaction_count) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    
+    @Autowired
+    private MonthlyRollupRepository monthlyRollupRepository;
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    public void recordAdded(Transaction transaction) {
+        applyDelta(transaction.getUser(), transaction.getCategory(), transaction.getType(),
+                transaction.getDate(), transaction.getAmount(), 1);
+    }
+    
+    public void recordRemoved(User user, Category category, Transaction.TransactionType type,
+                              LocalDate date, BigDecimal amount) {
+        applyDelta(user, category, type, date, amount.negate(), -1);
+    }
+    
+    public void applyDelta(User user, Category category, Transaction.TransactionType type,
+                           LocalDate date, BigDecimal amount, long count) {
+        LocalDate periodStart = date.withDayOfMonth(1);
+        int updated = monthlyRollupRepository.applyDelta(user, periodStart, category, type, amount, count);
+        if (updated != 0) {
+            return;
+        }
+        // The insert goes through JDBC so that losing the race on the unique key only fails this
+        // statement; the concurrent first write's row then takes the delta like any other
+        try {
+            jdbcTemplate.update(INSERT_SQL, user.getId(), Date.valueOf(periodStart), category.getId(), type.name(), amount, count);
+        } catch (DuplicateKeyException e) {
+            monthlyRollupRepository.applyDelta(user, periodStart, category, type, amount, count);
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public BigDecimal getTotalByUserAndType(User user, Transaction.TransactionType type) {
+        BigDecimal total = monthlyRollupRepository.sumAmountByUserAndType(user, type);
+        return total != null ? total : BigDecimal.ZERO;
+    }
+    
+    @Transactional(readOnly = true)
+    public long getCountByUser(User user) {
+        Long count = monthlyRollupRepository.sumCountByUser(user);
+        return count != null ? count : 0;
+    }
+    
+    @Transactional(readOnly = true)
+    public Map<Transaction.TransactionType, TypeTotal> getTotalsByType(User user, LocalDate startDate, LocalDate endDate) {
+        Map<Transaction.TransactionType, TypeTotal> totals = new EnumMap<>(Transaction.TransactionType.class);
+        for (Transaction.TransactionType type : Transaction.TransactionType.values()) {
+            totals.put(type, TypeTotal.empty(type));
+        }
+        if (endDate.isBefore(startDate)) {
+            return totals;
+        }
+        
+        RangePlan plan = RangePlan.of(startDate, endDate);
+        List<TypeTotal> rows = new ArrayList<>();
+        if (plan.hasFullMonths()) {
+            rows.addAll(monthlyRollupRepository.sumByUserAndPeriodBetweenGroupedByType(
+                    user, plan.firstFullMonth(), plan.lastFullMonth()));
+        }
+        for (LocalDate[] edge : plan.edges()) {
+            rows.addAll(transactionRepository.sumByUserAndDateBetweenGroupedByType(user, edge[0], edge[1]));
+        }
+        for (TypeTotal row : rows) {
+            totals.merge(row.type(), row, TypeTotal::plus);
+        }
+        return totals;
+    }
+    
+    // One row per (category, type) with any transactions in the range, from a fixed number of queries
+    @Transactional(readOnly = true)
+    public List<CategoryTypeTotal> getTotalsByCategoryAndType(User user, LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            return List.of();
+        }
+        
+        RangePlan plan = RangePlan.of(startDate, endDate);
+        List<CategoryTypeTotal> rows = new ArrayList<>();
+        if (plan.hasFullMonths()) {
+            rows.addAll(monthlyRollupRepository.sumByUserAndPeriodBetweenGroupedByCategoryAndType(
+                    user, plan.firstFullMonth(), plan.lastFullMonth()));
+        }
+        for (LocalDate[] edge : plan.edges()) {
+            rows.addAll(transactionRepository.sumByUserAndDateBetweenGroupedByCategoryAndType(user, edge[0], edge[1]));
+        }
+        
+        Map<CategoryTypeKey, CategoryTypeTotal> totals = new LinkedHashMap<>();
+        for (CategoryTypeTotal row : rows) {
+            if (row.count() > 0) {
+                totals.merge(new CategoryTypeKey(row.categoryId(), row.type()), row, CategoryTypeTotal::plus);
+            }
+        }
+        return new ArrayList<>(totals.values());
+    }
+    
+    @Transactional(readOnly = true)
+    public BigDecimal getTotalByUserAndTypeAndDateRange(User user, Transaction.TransactionType type,
+                                                        LocalDate startDate, LocalDate endDate) {
+        return getTotalsByType(user, startDate, endDate).get(type).total();
+    }
+    
+    @Transactional(readOnly = true)
+    public long getCountByUserAndDateRange(User user, LocalDate startDate, LocalDate endDate) {
+        return getTotalsByType(user, startDate, endDate).values().stream()
+                .mapToLong(TypeTotal::count)
+                .sum();
+    }
+    
+    @Transactional(readOnly = true)
+    public BigDecimal getTotalByCategoryAndDateRange(User user, Category category, LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            return BigDecimal.ZERO;
+        }
+        
+        RangePlan plan = RangePlan.of(startDate, endDate);
+        BigDecimal total = BigDecimal.ZERO;
+        if (plan.hasFullMonths()) {
+            total = add(total, monthlyRollupRepository.sumAmountByUserAndCategoryAndPeriodBetween(
+                    user, category, plan.firstFullMonth(), plan.lastFullMonth()));
+        }
+        for (LocalDate[] edge : plan.edges()) {
+            total = add(total, transactionRepository.sumAmountByUserAndCategoryAndDateBetween(user, category, edge[0], edge[1]));
+        }
+        return total;
+    }
+    
+    @Transactional(readOnly = true)
+    public List<MonthlyTypeTotal> getMonthlyTotals(User user) {
+        return monthlyRollupRepository.sumByUserGroupedByPeriodAndType(user);
+    }
+    
+    public void rebuild(User user) {
+        monthlyRollupRepository.deleteByUser(user);
+        
+        List<MonthlyRollup> rollups = new ArrayList<>();
+        for (Object[] row : transactionRepository.sumByUserGroupedByMonthAndCategoryAndType(user)) {
+            LocalDate periodStart = LocalDate.of((Integer) row[0], (Integer) row[1], 1);
+            Category category = categoryRepository.getReferenceById((Long) row[2]);
+            rollups.add(new MonthlyRollup(user, periodStart, category, (Transaction.TransactionType) row[3],
+                    (BigDecimal) row[4], (Long) row[5]));
+        }
+        monthlyRollupRepository.saveAll(rollups);
+    }
+    
+    public void rebuildAll() {
+        for (User user : userRepository.findAll()) {
+            rebuild(user);
+        }
+    }
+    
+    public boolean needsBackfill() {
+        return monthlyRollupRepository.count() == 0 && transactionRepository.count() > 0;
+    }
+    
+    private static BigDecimal add(BigDecimal total, BigDecimal value) {
+        return value != null ? total.add(value) : total;
+    }
+    
+    private record CategoryTypeKey(Long categoryId, Transaction.TransactionType type) {
+    }
+    
+    /**
+     * Splits an inclusive date range into a run of whole calendar months and up to two partial edges.
+     */
+    private record RangePlan(LocalDate firstFullMonth, LocalDate lastFullMonth, List<LocalDate[]> edges) {
+        
+        static RangePlan of(LocalDate startDate, LocalDate endDate) {
+            YearMonth startMonth = YearMonth.from(startDate);
+            YearMonth endMonth = YearMonth.from(endDate);
+            YearMonth firstFull = startDate.getDayOfMonth() == 1 ? startMonth : startMonth.plusMonths(1);
+            YearMonth lastFull = endDate.equals(endMonth.atEndOfMonth()) ? endMonth : endMonth.minusMonths(1);
+            
+            List<LocalDate[]> edges = new ArrayList<>();
+            if (firstFull.isAfter(lastFull)) {
+                // No whole month inside the range: at most the two partial months themselves
+                if (startMonth.equals(endMonth)) {
+                    edges.add(new LocalDate[] {startDate, endDate});
+                } else {
+                    edges.add(new LocalDate[] {startDate, startMonth.atEndOfMonth()});
+                    edges.add(new LocalDate[] {endMonth.atDay(1), endDate});
+                }
+                return new RangePlan(null, null, edges);
+            }
+            
+            if (!firstFull.equals(startMonth)) {
+                edges.add(new LocalDate[] {startDate, startMonth.atEndOfMonth()});
+            }
+            if (!lastFull.equals(endMonth)) {
+                edges.add(new LocalDate[] {endMonth.atDay(1), endDate});
+            }
+            return new RangePlan(firstFull.atDay(1), lastFull.atDay(1), edges);
+        }
+        
+        boolean hasFullMonths() {
+            return firstFullMonth != null;
+        }
+    }
+}
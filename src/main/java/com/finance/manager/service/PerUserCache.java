@@ -0,0 +1,107 @@
+package com.finance.manager.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Per-user values built from the database on a user's first read and then kept current by the
+ * write path, whose changes are applied only once the writing transaction has committed. Backs
+ * the search indexes of {@link TransactionSearchService} and the columns of
+ * {@link TransactionAnalyticsService}.
+ *
+ * Least recently used values, never the one being served, are evicted while the cache is over
+ * its budget.
+ */
+final class PerUserCache<V> {
+
+    private final ConcurrentHashMap<Long, V> values = new ConcurrentHashMap<>();
+
+    // Bumped before every applied change, per stripe of user ids; a load is only kept if its
+    // stripe did not move while it ran
+    private final AtomicLongArray versions = new AtomicLongArray(64);
+
+    private final ToLongFunction<V> lastAccess;
+
+    private final Predicate<Collection<V>> overBudget;
+
+    PerUserCache(ToLongFunction<V> lastAccess, Predicate<Collection<V>> overBudget) {
+        this.lastAccess = lastAccess;
+        this.overBudget = overBudget;
+    }
+
+    V get(Long userId, Function<Long, V> loader) {
+        V value = values.get(userId);
+        if (value != null) {
+            return value;
+        }
+        // Loaded outside the map so lookups of other users in the same bin never wait on the query
+        long version = versions.get(stripe(userId));
+        V loaded = loader.apply(userId);
+        V cached = values.compute(userId, (key, existing) ->
+                existing != null ? existing : versions.get(stripe(userId)) == version ? loaded : null);
+        if (cached == null) {
+            // A change committed during the load may be missing from it, so it serves this caller only
+            return loaded;
+        }
+        evictOverBudget(userId);
+        return cached;
+    }
+
+    // Applies the change to the user's value, if cached, after commit; it returns true when the value grew
+    void updateAfterCommit(Long userId, Predicate<V> change) {
+        afterCommit(() -> {
+            versions.incrementAndGet(stripe(userId));
+            boolean[] grown = new boolean[1];
+            values.computeIfPresent(userId, (key, value) -> {
+                grown[0] = change.test(value);
+                return value;
+            });
+            if (grown[0]) {
+                evictOverBudget(userId);
+            }
+        });
+    }
+
+    void invalidateAfterCommit(Long userId) {
+        afterCommit(() -> invalidate(userId));
+    }
+
+    void invalidate(Long userId) {
+        versions.incrementAndGet(stripe(userId));
+        values.remove(userId);
+    }
+
+    private void evictOverBudget(Long keepUserId) {
+        while (values.size() > 1 && overBudget.test(values.values())) {
+            values.entrySet().stream()
+                    .filter(entry -> !entry.getKey().equals(keepUserId))
+                    .min(Comparator.comparingLong(entry -> lastAccess.applyAsLong(entry.getValue())))
+                    .ifPresent(entry -> values.remove(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private static int stripe(long userId) {
+        return (int) (userId & 63);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
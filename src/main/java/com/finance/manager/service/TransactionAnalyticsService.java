@@ -0,0 +1,192 @@
+package com.finance.manager.service;
+
+import com.finance.manager.dto.CategoryTypeTotal;
+import com.finance.manager.dto.TransactionFilter;
+import com.finance.manager.dto.TypeTotal;
+import com.finance.manager.entity.Transaction;
+import com.finance.manager.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Optional columnar analytics over transaction history. When enabled, a user's transactions are
+ * loaded into {@link TransactionColumns} on their first analytics query and are then kept current
+ * by the write path in {@link TransactionService}, so filtered totals, the category breakdown and
+ * the month by category matrix of {@link YearlyReportService} are computed by scanning primitive
+ * arrays instead of querying the database.
+ * Least recently used users are evicted once the columns outgrow the memory budget.
+ */
+@Service
+@Transactional(readOnly = true)
+public class TransactionAnalyticsService {
+
+    private static final Transaction.TransactionType[] TYPES = Transaction.TransactionType.values();
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Value("${finance.analytics.columnar.enabled:false}")
+    private boolean enabled;
+
+    @Value("${finance.analytics.columnar.max-memory:64MB}")
+    private DataSize maxMemory;
+
+    private final PerUserCache<TransactionColumns> columns = new PerUserCache<>(TransactionColumns::lastAccess,
+            cached -> cached.stream().mapToLong(TransactionColumns::bytes).sum() > maxMemory.toBytes());
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Sum and count per type of the transactions matching the filter; keywords are not supported
+    public Map<Transaction.TransactionType, TypeTotal> getTotalsByFilter(Long userId, TransactionFilter filter) {
+        if (filter.keyword() != null) {
+            throw new IllegalArgumentException("Keyword filters are not supported by columnar analytics");
+        }
+        Map<Transaction.TransactionType, TypeTotal> totals = new EnumMap<>(Transaction.TransactionType.class);
+        TransactionColumns userColumns = columnsFor(userId);
+        int category = -1;
+        if (filter.categoryId() != null) {
+            category = userColumns.categoryIndexOf(filter.categoryId());
+            if (category < 0) {
+                return totals;
+            }
+        }
+
+        long[] sums = new long[TYPES.length];
+        long[] counts = new long[TYPES.length];
+        userColumns.totalsByType(toDay(filter.startDate(), Integer.MIN_VALUE), toDay(filter.endDate(), Integer.MAX_VALUE),
+                filter.type() != null ? filter.type().ordinal() : -1, category,
+                filter.minAmount() != null ? toCents(filter.minAmount(), RoundingMode.CEILING) : Long.MIN_VALUE,
+                filter.maxAmount() != null ? toCents(filter.maxAmount(), RoundingMode.FLOOR) : Long.MAX_VALUE,
+                sums, counts);
+        for (Transaction.TransactionType type : TYPES) {
+            if (counts[type.ordinal()] > 0) {
+                totals.put(type, new TypeTotal(type, BigDecimal.valueOf(sums[type.ordinal()], 2), counts[type.ordinal()]));
+            }
+        }
+        return totals;
+    }
+
+    // Month -> category id -> totals by type ordinal from first to last; months and categories
+    // without any amount are left out
+    public Map<YearMonth, Map<Long, BigDecimal[]>> sumByMonthAndCategory(Long userId, YearMonth first, YearMonth last) {
+        int months = (int) (last.getYear() * 12L + last.getMonthValue() - first.getYear() * 12L - first.getMonthValue()) + 1;
+        if (months <= 0) {
+            return Map.of();
+        }
+        int[] monthStarts = new int[months + 1];
+        for (int i = 0; i <= months; i++) {
+            monthStarts[i] = (int) first.plusMonths(i).atDay(1).toEpochDay();
+        }
+        TransactionColumns userColumns = columnsFor(userId);
+        long[][] sums = userColumns.sumByMonthAndCategory(monthStarts, TYPES.length);
+
+        Map<YearMonth, Map<Long, BigDecimal[]>> totals = new LinkedHashMap<>();
+        for (int month = 0; month < months; month++) {
+            Map<Long, BigDecimal[]> byCategory = new LinkedHashMap<>();
+            for (int cell = 0; cell < sums[month].length; cell += TYPES.length) {
+                BigDecimal[] byType = null;
+                for (int type = 0; type < TYPES.length; type++) {
+                    if (sums[month][cell + type] != 0) {
+                        if (byType == null) {
+                            byType = new BigDecimal[TYPES.length];
+                            Arrays.fill(byType, BigDecimal.ZERO);
+                            byCategory.put(userColumns.categoryIdAt(cell / TYPES.length), byType);
+                        }
+                        byType[type] = BigDecimal.valueOf(sums[month][cell + type], 2);
+                    }
+                }
+            }
+            if (!byCategory.isEmpty()) {
+                totals.put(first.plusMonths(month), byCategory);
+            }
+        }
+        return totals;
+    }
+
+    // Sum and count per category and type of the transactions between the dates, as the monthly rollups report them
+    public List<CategoryTypeTotal> getTotalsByCategory(Long userId, LocalDate startDate, LocalDate endDate) {
+        TransactionColumns userColumns = columnsFor(userId);
+        long[][] totals = userColumns.totalsByCategory(toDay(startDate, Integer.MIN_VALUE), toDay(endDate, Integer.MAX_VALUE), TYPES.length);
+        long[] sums = totals[0];
+        long[] counts = totals[1];
+
+        List<CategoryTypeTotal> rows = new ArrayList<>();
+        for (int cell = 0; cell < sums.length; cell++) {
+            if (counts[cell] > 0) {
+                rows.add(new CategoryTypeTotal(userColumns.categoryIdAt(cell / TYPES.length), TYPES[cell % TYPES.length],
+                        BigDecimal.valueOf(sums[cell], 2), counts[cell]));
+            }
+        }
+        return rows;
+    }
+
+    // Column changes are applied only once the writing transaction has committed
+    public void recordSavedAfterCommit(Transaction transaction) {
+        if (!enabled) {
+            return;
+        }
+        long userId = transaction.getUser().getId();
+        long id = transaction.getId();
+        long amountCents = toCents(transaction.getAmount(), RoundingMode.HALF_UP);
+        int day = (int) transaction.getDate().toEpochDay();
+        byte type = (byte) transaction.getType().ordinal();
+        long categoryId = transaction.getCategory().getId();
+        columns.updateAfterCommit(userId, userColumns -> userColumns.upsert(id, amountCents, day, type, categoryId));
+    }
+
+    public void recordDeletedAfterCommit(Long userId, Long transactionId) {
+        if (!enabled) {
+            return;
+        }
+        columns.updateAfterCommit(userId, userColumns -> {
+            userColumns.remove(transactionId);
+            return false;
+        });
+    }
+
+    // For bulk changes such as imports and category deletions
+    public void invalidateAfterCommit(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        columns.invalidateAfterCommit(userId);
+    }
+
+    private TransactionColumns columnsFor(Long userId) {
+        return columns.get(userId, this::load);
+    }
+
+    private TransactionColumns load(Long userId) {
+        TransactionColumns userColumns = new TransactionColumns(1024);
+        try (Stream<Object[]> rows = transactionRepository.streamColumnsByUserId(userId)) {
+            rows.forEach(row -> userColumns.append((Long) row[0], toCents((BigDecimal) row[1], RoundingMode.HALF_UP),
+                    (int) ((LocalDate) row[2]).toEpochDay(), (byte) ((Transaction.TransactionType) row[3]).ordinal(), (Long) row[4]));
+        }
+        return userColumns;
+    }
+
+    private static long toCents(BigDecimal amount, RoundingMode roundingMode) {
+        return amount.setScale(2, roundingMode).unscaledValue().longValueExact();
+    }
+
+    private static int toDay(LocalDate date, int unbounded) {
+        return date != null ? (int) date.toEpochDay() : unbounded;
+    }
+}
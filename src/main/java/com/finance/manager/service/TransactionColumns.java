@@ -0,0 +1,333 @@
+package com.finance.manager.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One user's transactions as parallel primitive columns sorted by (epoch day, id): amount in
+ * cents, epoch day, type ordinal and a dense category index. Range queries binary-search the day
+ * bounds and scan the columns without allocating; writers shift the arrays in place under a
+ * write lock, finding a replaced or removed row by its (day, id) key through an id -> day hash.
+ */
+final class TransactionColumns {
+
+    private static final int BYTES_PER_ROW = Long.BYTES * 2 + Integer.BYTES * 2 + Byte.BYTES;
+
+    private static final int BYTES_PER_SLOT = Long.BYTES + Integer.BYTES;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile long lastAccess = System.nanoTime();
+
+    private long[] ids;
+    private long[] cents;
+    private int[] days;
+    private byte[] types;
+    private int[] categories;
+    private int size;
+
+    // Open addressing with linear probing; transaction ids start at 1, so 0 marks a free slot
+    private long[] slotIds = new long[32];
+    private int[] slotDays = new int[32];
+    private int slots;
+
+    // Dense category index <-> category id
+    private long[] categoryIds = new long[16];
+    private final Map<Long, Integer> categoryIndex = new HashMap<>();
+
+    TransactionColumns(int capacity) {
+        int initial = Math.max(capacity, 16);
+        ids = new long[initial];
+        cents = new long[initial];
+        days = new int[initial];
+        types = new byte[initial];
+        categories = new int[initial];
+    }
+
+    long bytes() {
+        lock.readLock().lock();
+        try {
+            return (long) ids.length * BYTES_PER_ROW + (long) slotIds.length * BYTES_PER_SLOT
+                    + (long) categoryIds.length * (Long.BYTES + 48);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long lastAccess() {
+        return lastAccess;
+    }
+
+    long categoryIdAt(int index) {
+        lock.readLock().lock();
+        try {
+            return categoryIds[index];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Rows must arrive in (day, id) order; used while loading
+    void append(long id, long amountCents, int day, byte type, long categoryId) {
+        ensureCapacity(size + 1);
+        ids[size] = id;
+        cents[size] = amountCents;
+        days[size] = day;
+        types[size] = type;
+        categories[size] = indexOf(categoryId);
+        size++;
+        putDay(id, day);
+    }
+
+    // Inserts or replaces the row with this id; returns true if the arrays had to grow
+    boolean upsert(long id, long amountCents, int day, byte type, long categoryId) {
+        lock.writeLock().lock();
+        try {
+            removeRow(id);
+            int capacity = ids.length;
+            ensureCapacity(size + 1);
+            int position = upperBound(day, id);
+            int tail = size - position;
+            System.arraycopy(ids, position, ids, position + 1, tail);
+            System.arraycopy(cents, position, cents, position + 1, tail);
+            System.arraycopy(days, position, days, position + 1, tail);
+            System.arraycopy(types, position, types, position + 1, tail);
+            System.arraycopy(categories, position, categories, position + 1, tail);
+            ids[position] = id;
+            cents[position] = amountCents;
+            days[position] = day;
+            types[position] = type;
+            categories[position] = indexOf(categoryId);
+            size++;
+            putDay(id, day);
+            return ids.length != capacity;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeRow(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the amount (in cents) and count of every row within [fromDay, toDay] matching the
+     * optional type, category index and amount bounds to sums[type] and counts[type].
+     * A negative type or category means any; the amount bounds are inclusive.
+     */
+    void totalsByType(int fromDay, int toDay, int type, int category, long minCents, long maxCents,
+                      long[] sums, long[] counts) {
+        lastAccess = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            int end = upperBound(toDay, Long.MAX_VALUE);
+            int start = lowerBound(fromDay);
+            // A row matches when its type and (masked) category xor to zero; sums are taken
+            // without branching, in one pass per type accumulating in locals
+            int categoryMask = category < 0 ? 0 : -1;
+            int wantedCategory = category & categoryMask;
+            for (int t = 0; t < sums.length; t++) {
+                if (type >= 0 && t != type) {
+                    continue;
+                }
+                long sum = 0;
+                long count = 0;
+                for (int i = start; i < end; i++) {
+                    long amount = cents[i];
+                    int key = (types[i] ^ t) | ((categories[i] ^ wantedCategory) & categoryMask);
+                    boolean match = key == 0 & amount >= minCents & amount <= maxCents;
+                    sum += match ? amount : 0;
+                    count += match ? 1 : 0;
+                }
+                sums[t] += sum;
+                counts[t] += count;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Cents and row counts of the rows within the days, both indexed by category index * typeCount + type
+    long[][] totalsByCategory(int fromDay, int toDay, int typeCount) {
+        lastAccess = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            long[] sums = new long[categoryIndex.size() * typeCount];
+            long[] counts = new long[sums.length];
+            int end = upperBound(toDay, Long.MAX_VALUE);
+            for (int i = lowerBound(fromDay); i < end; i++) {
+                int cell = categories[i] * typeCount + types[i];
+                sums[cell] += cents[i];
+                counts[cell]++;
+            }
+            return new long[][] {sums, counts};
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cents of the rows per month, indexed by category index * typeCount + type, where month m
+     * spans [monthStarts[m], monthStarts[m + 1]); one fewer month is returned than monthStarts holds.
+     */
+    long[][] sumByMonthAndCategory(int[] monthStarts, int typeCount) {
+        lastAccess = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            long[][] sums = new long[monthStarts.length - 1][categoryIndex.size() * typeCount];
+            int end = lowerBound(monthStarts[monthStarts.length - 1]);
+            int month = 0;
+            for (int i = lowerBound(monthStarts[0]); i < end; i++) {
+                while (days[i] >= monthStarts[month + 1]) {
+                    month++;
+                }
+                sums[month][categories[i] * typeCount + types[i]] += cents[i];
+            }
+            return sums;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int categoryIndexOf(long categoryId) {
+        lock.readLock().lock();
+        try {
+            Integer index = categoryIndex.get(categoryId);
+            return index != null ? index : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeRow(long id) {
+        int slot = slotOf(id);
+        if (slotIds[slot] == 0) {
+            return;
+        }
+        // The row is the last one at or before its own (day, id)
+        int i = upperBound(slotDays[slot], id) - 1;
+        freeSlot(slot);
+        int tail = size - i - 1;
+        System.arraycopy(ids, i + 1, ids, i, tail);
+        System.arraycopy(cents, i + 1, cents, i, tail);
+        System.arraycopy(days, i + 1, days, i, tail);
+        System.arraycopy(types, i + 1, types, i, tail);
+        System.arraycopy(categories, i + 1, categories, i, tail);
+        size--;
+    }
+
+    // The slot holding the id, or the free slot where it would go
+    private int slotOf(long id) {
+        int mask = slotIds.length - 1;
+        int slot = home(id, mask);
+        while (slotIds[slot] != 0 && slotIds[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void putDay(long id, int day) {
+        int slot = slotOf(id);
+        if (slotIds[slot] == 0) {
+            slotIds[slot] = id;
+            slots++;
+        }
+        slotDays[slot] = day;
+        if (slots * 2 > slotIds.length) {
+            long[] oldIds = slotIds;
+            int[] oldDays = slotDays;
+            slotIds = new long[oldIds.length * 2];
+            slotDays = new int[oldIds.length * 2];
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldIds[i] != 0) {
+                    int free = slotOf(oldIds[i]);
+                    slotIds[free] = oldIds[i];
+                    slotDays[free] = oldDays[i];
+                }
+            }
+        }
+    }
+
+    // Moves later entries of the probe run back into the hole, so lookups never stop short
+    private void freeSlot(int slot) {
+        int mask = slotIds.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; slotIds[next] != 0; next = (next + 1) & mask) {
+            // An entry may fill the hole only if the hole lies between its home slot and where it sits
+            if (((next - home(slotIds[next], mask)) & mask) >= ((next - hole) & mask)) {
+                slotIds[hole] = slotIds[next];
+                slotDays[hole] = slotDays[next];
+                hole = next;
+            }
+        }
+        slotIds[hole] = 0;
+        slots--;
+    }
+
+    private static int home(long id, int mask) {
+        return Long.hashCode(id * 0x9E3779B97F4A7C15L) & mask;
+    }
+
+    // First row on or after the day
+    private int lowerBound(int day) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First row after (day, id)
+    private int upperBound(int day, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] < day || (days[mid] == day && ids[mid] <= id)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int indexOf(long categoryId) {
+        Integer index = categoryIndex.get(categoryId);
+        if (index == null) {
+            index = categoryIndex.size();
+            if (index == categoryIds.length) {
+                categoryIds = Arrays.copyOf(categoryIds, index * 2);
+            }
+            categoryIds[index] = categoryId;
+            categoryIndex.put(categoryId, index);
+        }
+        return index;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        cents = Arrays.copyOf(cents, capacity);
+        days = Arrays.copyOf(days, capacity);
+        types = Arrays.copyOf(types, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+    }
+}
@@ -0,0 +1,97 @@
+package com.finance.manager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.finance.manager.dto.TransactionItem;
+import com.finance.manager.entity.User;
+import com.finance.manager.repository.TransactionRepository;
+import com.finance.manager.util.Csv;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a user's full transaction history to an output stream without materializing it.
+ * Rows are read through a forward-only database cursor as DTO projections, so neither the
+ * heap nor the persistence context grows with the size of the history.
+ */
+@Service
+@Transactional(readOnly = true)
+public class TransactionExportService {
+    
+    public enum Format {
+        CSV, NDJSON
+    }
+    
+    private static final int FLUSH_EVERY_ROWS = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    public long export(User user, Format format, boolean gzip, OutputStream target) throws IOException {
+        OutputStream out = gzip ? new GZIPOutputStream(target, BUFFER_SIZE, true) : target;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        
+        long rows = 0;
+        try (Stream<TransactionItem> items = transactionRepository.streamItemsByUser(user)) {
+            Iterator<TransactionItem> iterator = items.iterator();
+            if (format == Format.CSV) {
+                writer.write("date,description,amount,type,category,notes\n");
+                while (iterator.hasNext()) {
+                    writeCsv(writer, iterator.next());
+                    if (++rows % FLUSH_EVERY_ROWS == 0) {
+                        writer.flush();
+                    }
+                }
+            } else {
+                SequenceWriter json = objectMapper.writer().withRootValueSeparator("\n").writeValues(writer);
+                while (iterator.hasNext()) {
+                    json.write(iterator.next());
+                    if (++rows % FLUSH_EVERY_ROWS == 0) {
+                        json.flush();
+                    }
+                }
+                json.flush();
+                writer.write('\n');
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        
+        writer.flush();
+        if (gzip) {
+            ((GZIPOutputStream) out).finish();
+        }
+        return rows;
+    }
+    
+    private static void writeCsv(Writer writer, TransactionItem item) throws IOException {
+        writer.write(item.date().toString());
+        writer.write(',');
+        writer.write(Csv.escape(item.description()));
+        writer.write(',');
+        writer.write(item.amount().toPlainString());
+        writer.write(',');
+        writer.write(item.type().name());
+        writer.write(',');
+        writer.write(Csv.escape(item.categoryName()));
+        writer.write(',');
+        writer.write(Csv.escape(item.notes()));
+        writer.write('\n');
+    }
+}
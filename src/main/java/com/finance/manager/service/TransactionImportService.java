@@ -0,0 +1,389 @@
+package com.finance.manager.service;
+
+import com.finance.manager.dto.ImportProgress;
+import com.finance.manager.entity.Budget;
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.ChangeLogEntry;
+import com.finance.manager.entity.Transaction;
+import com.finance.manager.entity.User;
+import com.finance.manager.repository.BudgetRepository;
+import com.finance.manager.repository.CategoryRepository;
+import com.finance.manager.repository.UserRepository;
+import com.finance.manager.util.CsvReader;
+import com.finance.manager.util.JdbcBatches;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Imports transactions from CSV files with the header
+ * {@code date,description,amount,type,category,notes} (any column order; type and notes optional).
+ * Files are read record by record and inserted through JDBC batches, committing every
+ * {@code finance.import.commit-size} rows so that the database never has to hold a whole file
+ * as one transaction. Each commit brings the rollups and budgets up to date for its own rows, so
+ * they always match the committed transactions. An import that fails part way keeps the chunks
+ * committed before the failure; its progress reports how many rows were imported.
+ */
+@Service
+public class TransactionImportService {
+    
+    private static final Logger log = LoggerFactory.getLogger(TransactionImportService.class);
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO transactions (description, amount, date, type, user_id, category_id, notes, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private record ParsedRow(String description, BigDecimal amount, LocalDate date,
+                             Transaction.TransactionType type, Category category, String notes) {}
+    
+    private record RollupKey(LocalDate periodStart, Category category, Transaction.TransactionType type) {}
+    
+    // Rows parsed since the last commit, with the rollup and budget changes they bring
+    private static final class ImportChunk {
+        private final List<ParsedRow> rows = new ArrayList<>();
+        private final Map<RollupKey, BigDecimal> rollupAmounts = new HashMap<>();
+        private final Map<RollupKey, Long> rollupCounts = new HashMap<>();
+        private final Map<Category, LocalDate[]> expenseRanges = new HashMap<>();
+        
+        void add(ParsedRow row) {
+            rows.add(row);
+            RollupKey key = new RollupKey(row.date().withDayOfMonth(1), row.category(), row.type());
+            rollupAmounts.merge(key, row.amount(), BigDecimal::add);
+            rollupCounts.merge(key, 1L, Long::sum);
+            if (row.type() == Transaction.TransactionType.EXPENSE) {
+                expenseRanges.merge(row.category(), new LocalDate[] {row.date(), row.date()}, (range, single) -> {
+                    range[0] = single[0].isBefore(range[0]) ? single[0] : range[0];
+                    range[1] = single[1].isAfter(range[1]) ? single[1] : range[1];
+                    return range;
+                });
+            }
+        }
+        
+        void clear() {
+            rows.clear();
+            rollupAmounts.clear();
+            rollupCounts.clear();
+            expenseRanges.clear();
+        }
+    }
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private ThreadPoolTaskExecutor importExecutor;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private BudgetRepository budgetRepository;
+    
+    @Autowired
+    private MonthlyRollupService monthlyRollupService;
+    
+    @Autowired
+    private BudgetService budgetService;
+    
+    @Autowired
+    private TransactionSearchService transactionSearchService;
+    
+    @Autowired
+    private TransactionAnalyticsService transactionAnalyticsService;
+    
+    @Autowired
+    private ChangeLogService changeLogService;
+    
+    @Value("${finance.import.batch-size:1000}")
+    private int batchSize;
+    
+    @Value("${finance.import.commit-size:50000}")
+    private int commitSize;
+    
+    private final Map<String, ImportProgress> imports = new ConcurrentHashMap<>();
+    
+    /**
+     * Starts importing the given file in the background. The file is deleted when the import ends,
+     * or right away when the executor is full and rejects it with a {@link TaskRejectedException}.
+     */
+    public ImportProgress startImport(User user, Path csvFile) {
+        LocalDateTime expiry = LocalDateTime.now().minusHours(1);
+        imports.values().removeIf(old -> old.getFinishedAt() != null && old.getFinishedAt().isBefore(expiry));
+        
+        ImportProgress progress = new ImportProgress(UUID.randomUUID().toString(), user.getId());
+        try {
+            importExecutor.execute(() -> {
+                try {
+                    runImport(user.getId(), csvFile, progress);
+                } finally {
+                    deleteImportFile(csvFile);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            deleteImportFile(csvFile);
+            throw e;
+        }
+        // Registered only once the executor has taken it, as a rejected import would never finish
+        imports.put(progress.getId(), progress);
+        return progress;
+    }
+    
+    public Optional<ImportProgress> findProgress(String importId, User user) {
+        return Optional.ofNullable(imports.get(importId))
+                .filter(progress -> progress.getUserId().equals(user.getId()));
+    }
+    
+    private void deleteImportFile(Path csvFile) {
+        try {
+            Files.deleteIfExists(csvFile);
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}", csvFile, e);
+        }
+    }
+    
+    private void runImport(Long userId, Path csvFile, ImportProgress progress) {
+        long started = System.currentTimeMillis();
+        try {
+            importRows(userRepository.getReferenceById(userId), csvFile, progress);
+            progress.complete();
+            log.info("Imported {} transactions ({} rejected rows) in {} ms",
+                    progress.getRowsImported(), progress.getErrorCount(), System.currentTimeMillis() - started);
+        } catch (IOException e) {
+            log.error("Transaction import {} failed after importing {} rows", progress.getId(), progress.getRowsImported(), e);
+            progress.fail("Could not read import file: " + e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Transaction import {} failed after importing {} rows", progress.getId(), progress.getRowsImported(), e);
+            progress.fail(e.getMessage());
+        }
+    }
+    
+    private void importRows(User user, Path csvFile, ImportProgress progress) throws IOException {
+        Map<String, Category> categories = new HashMap<>();
+        for (Category category : categoryRepository.findByUser(user)) {
+            categories.put(category.getName().toLowerCase(Locale.ROOT), category);
+        }
+        
+        ImportChunk chunk = new ImportChunk();
+        
+        // Quoted fields may span lines, as the export writes notes with line breaks
+        try (CsvReader reader = new CsvReader(Files.newBufferedReader(csvFile, StandardCharsets.UTF_8))) {
+            List<String> header = reader.readRecord();
+            if (header == null) {
+                throw new IllegalArgumentException("The file is empty");
+            }
+            Map<String, Integer> columns = readHeader(header);
+            
+            while (true) {
+                List<String> fields;
+                try {
+                    fields = reader.readRecord();
+                } catch (IllegalArgumentException e) {
+                    // An unterminated quoted field runs to the end of the file
+                    progress.rowRead();
+                    progress.rowFailed(reader.getRecordLine(), e.getMessage());
+                    break;
+                }
+                if (fields == null) {
+                    break;
+                }
+                if (fields.size() == 1 && fields.get(0).isBlank()) {
+                    continue;
+                }
+                progress.rowRead();
+                
+                ParsedRow row;
+                try {
+                    row = parseRow(fields, columns, categories);
+                } catch (IllegalArgumentException e) {
+                    progress.rowFailed(reader.getRecordLine(), e.getMessage());
+                    continue;
+                }
+                
+                chunk.add(row);
+                if (chunk.rows.size() >= commitSize) {
+                    commit(chunk, user, progress);
+                }
+            }
+        }
+        commit(chunk, user, progress);
+    }
+    
+    private void commit(ImportChunk chunk, User user, ImportProgress progress) {
+        if (chunk.rows.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < chunk.rows.size(); from += batchSize) {
+                // Logged by the keys the batch generated, so no other row of the user can be mistaken for one
+                for (Long id : insert(chunk.rows.subList(from, Math.min(from + batchSize, chunk.rows.size())), user.getId(), now)) {
+                    changeLogService.record(user.getId(), ChangeLogEntry.EntityType.TRANSACTION, id, ChangeLogEntry.Operation.INSERT);
+                }
+            }
+            
+            for (Map.Entry<RollupKey, BigDecimal> entry : chunk.rollupAmounts.entrySet()) {
+                RollupKey key = entry.getKey();
+                monthlyRollupService.applyDelta(user, key.category(), key.type(), key.periodStart(),
+                        entry.getValue(), chunk.rollupCounts.get(key));
+            }
+            
+            // Each budget touched by the chunk is recomputed exactly once
+            for (Map.Entry<Category, LocalDate[]> entry : chunk.expenseRanges.entrySet()) {
+                LocalDate[] range = entry.getValue();
+                for (Budget budget : budgetRepository.findActiveByCategoryOverlapping(user, entry.getKey(), range[0], range[1])) {
+                    budgetService.updateBudgetSpentAmount(budget);
+                    changeLogService.record(user.getId(), ChangeLogEntry.EntityType.BUDGET,
+                            budget.getId(), ChangeLogEntry.Operation.UPDATE);
+                }
+            }
+            
+            transactionSearchService.invalidateAfterCommit(user.getId());
+            transactionAnalyticsService.invalidateAfterCommit(user.getId());
+        });
+        // Counted only once the chunk has committed, so a later failure still reports it
+        progress.rowsImported(chunk.rows.size());
+        chunk.clear();
+    }
+    
+    private List<Long> insert(List<ParsedRow> batch, Long userId, Timestamp now) {
+        return JdbcBatches.insertReturningIds(jdbcTemplate, INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ParsedRow row = batch.get(i);
+                ps.setString(1, row.description());
+                ps.setBigDecimal(2, row.amount());
+                ps.setDate(3, Date.valueOf(row.date()));
+                ps.setString(4, row.type().name());
+                ps.setLong(5, userId);
+                ps.setLong(6, row.category().getId());
+                ps.setString(7, row.notes());
+                ps.setTimestamp(8, now);
+                ps.setTimestamp(9, now);
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+    }
+    
+    private static Map<String, Integer> readHeader(List<String> names) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("date", "description", "amount", "category")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Missing required column '" + required + "'");
+            }
+        }
+        return columns;
+    }
+    
+    private static ParsedRow parseRow(List<String> fields, Map<String, Integer> columns, Map<String, Category> categories) {
+        String description = field(fields, columns, "description");
+        if (description == null) {
+            throw new IllegalArgumentException("Description is required");
+        }
+        if (description.length() > 255) {
+            throw new IllegalArgumentException("Description must not exceed 255 characters");
+        }
+        
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(required(fields, columns, "amount", "Amount is required"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Amount is not a number");
+        }
+        if (amount.compareTo(new BigDecimal("0.01")) < 0) {
+            throw new IllegalArgumentException("Amount must be greater than 0");
+        }
+        if (amount.scale() > 2) {
+            throw new IllegalArgumentException("Amount must have at most 2 decimal places");
+        }
+        
+        LocalDate date;
+        try {
+            date = LocalDate.parse(required(fields, columns, "date", "Date is required"));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Date must be in yyyy-MM-dd format");
+        }
+        
+        String categoryName = required(fields, columns, "category", "Category is required");
+        Category category = categories.get(categoryName.toLowerCase(Locale.ROOT));
+        if (category == null) {
+            throw new IllegalArgumentException("Unknown category '" + categoryName + "'");
+        }
+        
+        String typeName = field(fields, columns, "type");
+        Transaction.TransactionType type;
+        if (typeName == null) {
+            type = Transaction.TransactionType.valueOf(category.getType().name());
+        } else {
+            try {
+                type = Transaction.TransactionType.valueOf(typeName.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Type must be INCOME or EXPENSE");
+            }
+        }
+        
+        String notes = field(fields, columns, "notes");
+        if (notes != null && notes.length() > 255) {
+            throw new IllegalArgumentException("Notes must not exceed 255 characters");
+        }
+        
+        return new ParsedRow(description, amount, date, type, category, notes);
+    }
+    
+    private static String required(List<String> fields, Map<String, Integer> columns, String name, String message) {
+        String value = field(fields, columns, name);
+        if (value == null) {
+            throw new IllegalArgumentException(message);
+        }
+        return value;
+    }
+    
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,234 @@
+package com.finance.manager.service;
+
+import com.finance.manager.dto.TransactionFilter;
+import com.finance.manager.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over the description and notes of one user's transactions.
+ * Terms are kept sorted for prefix lookups, and every term is also indexed by its
+ * trigrams so that misspelled query words can be matched by similarity. Each document
+ * also keeps the fields a {@link TransactionFilter} narrows on, so a keyword combined
+ * with other criteria is answered from the index alone.
+ */
+class TransactionSearchIndex {
+    
+    private static final int DESCRIPTION_WEIGHT = 2;
+    private static final int NOTES_WEIGHT = 1;
+    private static final double EXACT_SCORE = 3.0;
+    private static final double PREFIX_SCORE = 2.0;
+    private static final double FUZZY_SCORE = 1.0;
+    private static final double MIN_SIMILARITY = 0.4;
+    
+    private record Document(LocalDate date, Long categoryId, Transaction.TransactionType type, BigDecimal amount,
+                            Set<String> terms) {}
+    
+    record Hit(long id, LocalDate date, Transaction.TransactionType type, BigDecimal amount, double score) {}
+    
+    private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<String, Set<String>> termsByTrigram = new HashMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private volatile long lastAccess = System.nanoTime();
+    
+    void put(long id, LocalDate date, Long categoryId, Transaction.TransactionType type, BigDecimal amount,
+             String description, String notes) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String term : tokenize(description)) {
+            weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum);
+        }
+        for (String term : tokenize(notes)) {
+            weights.merge(term, NOTES_WEIGHT, Integer::sum);
+        }
+        
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+                String term = entry.getKey();
+                Map<Long, Integer> docs = postings.get(term);
+                if (docs == null) {
+                    docs = new HashMap<>();
+                    postings.put(term, docs);
+                    for (String trigram : trigrams(term)) {
+                        termsByTrigram.computeIfAbsent(trigram, t -> new HashSet<>()).add(term);
+                    }
+                }
+                docs.put(id, entry.getValue());
+            }
+            documents.put(id, new Document(date, categoryId, type, amount, weights.keySet()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void removeLocked(long id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms()) {
+            Map<Long, Integer> docs = postings.get(term);
+            docs.remove(id);
+            if (docs.isEmpty()) {
+                postings.remove(term);
+                for (String trigram : trigrams(term)) {
+                    Set<String> terms = termsByTrigram.get(trigram);
+                    terms.remove(term);
+                    if (terms.isEmpty()) {
+                        termsByTrigram.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns every transaction matching all words of the filter's keyword and its other criteria,
+     * best match first. Each word matches exactly, as a prefix of an indexed term, or by trigram
+     * similarity, in decreasing score order.
+     */
+    List<Hit> search(TransactionFilter filter) {
+        lastAccess = System.nanoTime();
+        List<String> words = tokenize(filter.keyword());
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (String word : words) {
+                Map<Long, Double> wordScores = scoreWord(word);
+                if (scores == null) {
+                    scores = wordScores;
+                } else {
+                    Map<Long, Double> combined = new HashMap<>();
+                    for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                        Double wordScore = wordScores.get(entry.getKey());
+                        if (wordScore != null) {
+                            combined.put(entry.getKey(), entry.getValue() + wordScore);
+                        }
+                    }
+                    scores = combined;
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            
+            List<Hit> hits = new ArrayList<>(scores.size());
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                Document document = documents.get(entry.getKey());
+                if (matches(document, filter)) {
+                    hits.add(new Hit(entry.getKey(), document.date(), document.type(), document.amount(), entry.getValue()));
+                }
+            }
+            hits.sort(Comparator.comparingDouble(Hit::score).reversed()
+                    .thenComparing(Hit::date, Comparator.reverseOrder())
+                    .thenComparing(Comparator.comparingLong(Hit::id).reversed()));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private Map<Long, Double> scoreWord(String word) {
+        Map<Long, Double> scores = new HashMap<>();
+        addScores(scores, postings.get(word), EXACT_SCORE);
+        
+        for (Map.Entry<String, Map<Long, Integer>> entry : postings.subMap(word, false, word + Character.MAX_VALUE, false).entrySet()) {
+            addScores(scores, entry.getValue(), PREFIX_SCORE);
+        }
+        
+        if (word.length() >= 3) {
+            Map<String, Integer> sharedTrigrams = new HashMap<>();
+            Set<String> wordTrigrams = trigrams(word);
+            for (String trigram : wordTrigrams) {
+                for (String term : termsByTrigram.getOrDefault(trigram, Set.of())) {
+                    sharedTrigrams.merge(term, 1, Integer::sum);
+                }
+            }
+            for (Map.Entry<String, Integer> entry : sharedTrigrams.entrySet()) {
+                String term = entry.getKey();
+                double similarity = 2.0 * entry.getValue() / (wordTrigrams.size() + trigrams(term).size());
+                if (similarity >= MIN_SIMILARITY && !term.startsWith(word)) {
+                    addScores(scores, postings.get(term), FUZZY_SCORE * similarity);
+                }
+            }
+        }
+        return scores;
+    }
+    
+    // The same criteria TransactionSpecifications puts in the WHERE clause, all bounds inclusive
+    private static boolean matches(Document document, TransactionFilter filter) {
+        return (filter.categoryId() == null || filter.categoryId().equals(document.categoryId()))
+                && (filter.type() == null || filter.type() == document.type())
+                && (filter.startDate() == null || !document.date().isBefore(filter.startDate()))
+                && (filter.endDate() == null || !document.date().isAfter(filter.endDate()))
+                && (filter.minAmount() == null || document.amount().compareTo(filter.minAmount()) >= 0)
+                && (filter.maxAmount() == null || document.amount().compareTo(filter.maxAmount()) <= 0);
+    }
+    
+    // Keeps the best match of the word per document, weighted by where and how often the term occurs
+    private static void addScores(Map<Long, Double> scores, Map<Long, Integer> docs, double matchScore) {
+        if (docs == null) {
+            return;
+        }
+        for (Map.Entry<Long, Integer> doc : docs.entrySet()) {
+            scores.merge(doc.getKey(), matchScore * doc.getValue(), Math::max);
+        }
+    }
+    
+    long lastAccess() {
+        return lastAccess;
+    }
+    
+    int size() {
+        return documents.size();
+    }
+    
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+    
+    static Set<String> trigrams(String term) {
+        String padded = "  " + term + " ";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+}
@@ -0,0 +1,148 @@
+package com.finance.manager.service;
+
+import com.finance.manager.dto.TransactionFilter;
+import com.finance.manager.dto.TypeTotal;
+import com.finance.manager.entity.Transaction;
+import com.finance.manager.entity.User;
+import com.finance.manager.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ranked keyword search over transaction descriptions and notes, served from per-user
+ * in-memory indexes. A user's index is built from the transactions table on their first
+ * search and is then kept current by the write path in {@link TransactionService}.
+ *
+ * Every filter with a keyword is answered here, with its other criteria applied to the hits,
+ * so a keyword matches the same transactions on the list, in the totals and in the latest rows.
+ */
+@Service
+@Transactional(readOnly = true)
+public class TransactionSearchService {
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    private int maxIndexedUsers;
+    
+    private final PerUserCache<TransactionSearchIndex> indexes =
+            new PerUserCache<>(TransactionSearchIndex::lastAccess, cached -> cached.size() > maxIndexedUsers);
+    
+    @Value("${finance.search.max-indexed-users:1000}")
+    void setMaxIndexedUsers(int maxIndexedUsers) {
+        if (maxIndexedUsers < 1) {
+            throw new IllegalArgumentException("finance.search.max-indexed-users must be at least 1");
+        }
+        this.maxIndexedUsers = maxIndexedUsers;
+    }
+    
+    public Page<Transaction> search(User user, String query, Pageable pageable) {
+        return search(user, new TransactionFilter(null, null, null, null, null, null, query), pageable);
+    }
+    
+    // Best matches first
+    public Page<Transaction> search(User user, TransactionFilter filter, Pageable pageable) {
+        List<TransactionSearchIndex.Hit> hits = indexFor(user.getId()).search(filter);
+        
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        int to = Math.min(from + pageable.getPageSize(), hits.size());
+        List<Long> pageIds = hits.subList(from, to).stream().map(TransactionSearchIndex.Hit::id).toList();
+        return new PageImpl<>(findInOrder(pageIds), pageable, hits.size());
+    }
+    
+    public List<Transaction> searchAll(User user, String query) {
+        return search(user, query, Pageable.ofSize(Integer.MAX_VALUE)).getContent();
+    }
+    
+    // Newest matches first, in the order of the filtered SQL queries
+    public List<Transaction> findLatest(User user, TransactionFilter filter, int limit) {
+        List<Long> ids = indexFor(user.getId()).search(filter).stream()
+                .sorted(Comparator.comparing(TransactionSearchIndex.Hit::date, Comparator.reverseOrder())
+                        .thenComparing(Comparator.comparingLong(TransactionSearchIndex.Hit::id).reversed()))
+                .limit(limit)
+                .map(TransactionSearchIndex.Hit::id)
+                .toList();
+        return findInOrder(ids);
+    }
+    
+    public Map<Transaction.TransactionType, TypeTotal> getTotals(User user, TransactionFilter filter) {
+        Map<Transaction.TransactionType, BigDecimal> sums = new EnumMap<>(Transaction.TransactionType.class);
+        Map<Transaction.TransactionType, Long> counts = new EnumMap<>(Transaction.TransactionType.class);
+        for (TransactionSearchIndex.Hit hit : indexFor(user.getId()).search(filter)) {
+            sums.merge(hit.type(), hit.amount(), BigDecimal::add);
+            counts.merge(hit.type(), 1L, Long::sum);
+        }
+        Map<Transaction.TransactionType, TypeTotal> totals = new EnumMap<>(Transaction.TransactionType.class);
+        sums.forEach((type, sum) -> totals.put(type, new TypeTotal(type, sum, counts.get(type))));
+        return totals;
+    }
+    
+    private List<Transaction> findInOrder(List<Long> ids) {
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            rank.put(ids.get(i), i);
+        }
+        return transactionRepository.findAllById(ids).stream()
+                .sorted(Comparator.comparing(transaction -> rank.get(transaction.getId())))
+                .toList();
+    }
+    
+    // Index changes are applied only once the writing transaction has committed
+    public void indexAfterCommit(Transaction transaction) {
+        long userId = transaction.getUser().getId();
+        long id = transaction.getId();
+        LocalDate date = transaction.getDate();
+        Long categoryId = transaction.getCategory().getId();
+        Transaction.TransactionType type = transaction.getType();
+        BigDecimal amount = transaction.getAmount();
+        String description = transaction.getDescription();
+        String notes = transaction.getNotes();
+        // The indexes are bounded by count, so growing one never evicts another
+        indexes.updateAfterCommit(userId, index -> {
+            index.put(id, date, categoryId, type, amount, description, notes);
+            return false;
+        });
+    }
+    
+    public void removeAfterCommit(Long userId, Long transactionId) {
+        indexes.updateAfterCommit(userId, index -> {
+            index.remove(transactionId);
+            return false;
+        });
+    }
+    
+    public void invalidateAfterCommit(Long userId) {
+        indexes.invalidateAfterCommit(userId);
+    }
+    
+    public void rebuild(User user) {
+        indexes.invalidate(user.getId());
+        indexFor(user.getId());
+    }
+    
+    private TransactionSearchIndex indexFor(Long userId) {
+        return indexes.get(userId, this::load);
+    }
+    
+    private TransactionSearchIndex load(Long userId) {
+        TransactionSearchIndex index = new TransactionSearchIndex();
+        for (Object[] row : transactionRepository.findSearchFieldsByUserId(userId)) {
+            index.put((Long) row[0], (LocalDate) row[1], (Long) row[2], (Transaction.TransactionType) row[3],
+                    (BigDecimal) row[4], (String) row[5], (String) row[6]);
+        }
+        return index;
+    }
+}
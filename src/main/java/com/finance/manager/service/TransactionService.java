@@ -1,18 +1,37 @@
 package com.finance.manager.service;
 
+import com.finance.manager.dto.CategoryTypeTotal;
+import com.finance.manager.dto.CursorPage;
+import com.finance.manager.dto.TransactionCursor;
+import com.finance.manager.dto.TransactionFilter;
+import com.finance.manager.dto.TypeTotal;
 import com.finance.manager.entity.Category;
+import com.finance.manager.entity.ChangeLogEntry;
 import com.finance.manager.entity.Transaction;
 import com.finance.manager.entity.User;
 import com.finance.manager.repository.TransactionRepository;
+import com.finance.manager.repository.TransactionSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -25,6 +44,21 @@ public class TransactionService {
     @Autowired
     private BudgetService budgetService;
     
+    @Autowired
+    private MonthlyRollupService monthlyRollupService;
+    
+    @Autowired
+    private TransactionSearchService transactionSearchService;
+    
+    @Autowired
+    private TransactionAnalyticsService transactionAnalyticsService;
+    
+    @Autowired
+    private ChangeLogService changeLogService;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     public List<Transaction> findAll() {
         return transactionRepository.findAll();
     }
@@ -45,6 +79,47 @@ public class TransactionService {
         return transactionRepository.findByUserOrderByDateDesc(user, pageable);
     }
     
+    /**
+     * Returns the page of transactions older than {@code after}, or newer than {@code before},
+     * in (date DESC, id DESC) order. With neither cursor the newest page is returned.
+     * Every page costs one bounded index seek, however deep into the history it is.
+     */
+    public CursorPage<Transaction> findByUserWithCursor(User user, String after, String before, int size) {
+        Limit limit = Limit.of(size + 1);
+        
+        if (before != null) {
+            TransactionCursor cursor = TransactionCursor.decode(before);
+            List<Transaction> rows = new ArrayList<>(
+                    transactionRepository.findByUserNewerThan(user, cursor.date(), cursor.id(), limit));
+            boolean hasNewer = rows.size() > size;
+            if (hasNewer) {
+                rows.remove(size);
+            }
+            Collections.reverse(rows);
+            if (rows.isEmpty()) {
+                return findByUserWithCursor(user, null, null, size);
+            }
+            return new CursorPage<>(rows,
+                    TransactionCursor.of(rows.get(rows.size() - 1)).encode(),
+                    hasNewer ? TransactionCursor.of(rows.get(0)).encode() : null);
+        }
+        
+        List<Transaction> rows;
+        if (after != null) {
+            TransactionCursor cursor = TransactionCursor.decode(after);
+            rows = new ArrayList<>(transactionRepository.findByUserOlderThan(user, cursor.date(), cursor.id(), limit));
+        } else {
+            rows = new ArrayList<>(transactionRepository.findLatestByUser(user, limit));
+        }
+        boolean hasOlder = rows.size() > size;
+        if (hasOlder) {
+            rows.remove(size);
+        }
+        return new CursorPage<>(rows,
+                hasOlder ? TransactionCursor.of(rows.get(rows.size() - 1)).encode() : null,
+                after != null && !rows.isEmpty() ? TransactionCursor.of(rows.get(0)).encode() : null);
+    }
+    
     public List<Transaction> findByUserAndCategory(User user, Category category) {
         return transactionRepository.findByUserAndCategory(user, category);
     }
@@ -65,16 +140,75 @@ public class TransactionService {
         return transactionRepository.findByUserAndCategoryAndDateBetween(user, category, startDate, endDate);
     }
     
+    // A keyword is served ranked from the search index, which applies the other criteria to its hits;
+    // without one the criteria run as one SQL query
+    public Page<Transaction> findByFilter(User user, TransactionFilter filter, Pageable pageable) {
+        if (filter.keyword() != null) {
+            return transactionSearchService.search(user, filter, pageable);
+        }
+        Pageable sorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by(Sort.Order.desc("date"), Sort.Order.desc("id")));
+        return transactionRepository.findAll(TransactionSpecifications.matching(user, filter), sorted);
+    }
+    
+    // Newest rows matching the filter, fetched with a LIMIT and no count query
+    @Transactional(readOnly = true)
+    public List<Transaction> findLatestByFilter(User user, TransactionFilter filter, int limit) {
+        if (filter.keyword() != null) {
+            return transactionSearchService.findLatest(user, filter, limit);
+        }
+        return transactionRepository.findBy(TransactionSpecifications.matching(user, filter),
+                query -> query.sortBy(Sort.by(Sort.Order.desc("date"), Sort.Order.desc("id")))
+                        .project("category").limit(limit).all());
+    }
+    
+    @Transactional(readOnly = true)
+    public Map<Transaction.TransactionType, TypeTotal> getTotalsByFilter(User user, TransactionFilter filter) {
+        if (filter.isDateRangeOnly() && filter.startDate() != null && filter.endDate() != null) {
+            return getTotalsByTypeAndDateRange(user, filter.startDate(), filter.endDate());
+        }
+        if (filter.keyword() != null) {
+            return transactionSearchService.getTotals(user, filter);
+        }
+        if (transactionAnalyticsService.isEnabled()) {
+            return transactionAnalyticsService.getTotalsByFilter(user.getId(), filter);
+        }
+        
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TypeTotal> query = cb.createQuery(TypeTotal.class);
+        Root<Transaction> root = query.from(Transaction.class);
+        query.select(cb.construct(TypeTotal.class, root.get("type"), cb.sum(root.<BigDecimal>get("amount")), cb.count(root)))
+                .where(TransactionSpecifications.matching(user, filter).toPredicate(root, query, cb))
+                .groupBy(root.get("type"));
+        
+        Map<Transaction.TransactionType, TypeTotal> totals = new EnumMap<>(Transaction.TransactionType.class);
+        for (TypeTotal total : entityManager.createQuery(query).getResultList()) {
+            totals.put(total.type(), total);
+        }
+        return totals;
+    }
+    
     public List<Transaction> searchTransactions(User user, String keyword) {
-        return transactionRepository.findByUserAndDescriptionOrNotesContaining(user, keyword);
+        return transactionSearchService.searchAll(user, keyword);
     }
     
+    public Page<Transaction> searchTransactions(User user, String keyword, Pageable pageable) {
+        return transactionSearchService.search(user, keyword, pageable);
+    }
+    
+    // Persists a new transaction; existing transactions are changed through updateTransaction
     public Transaction save(Transaction transaction) {
         Transaction savedTransaction = transactionRepository.save(transaction);
+        monthlyRollupService.recordAdded(savedTransaction);
+        transactionSearchService.indexAfterCommit(savedTransaction);
+        transactionAnalyticsService.recordSavedAfterCommit(savedTransaction);
+        changeLogService.record(savedTransaction.getUser().getId(), ChangeLogEntry.EntityType.TRANSACTION,
+                savedTransaction.getId(), ChangeLogEntry.Operation.INSERT);
         
         // Update budget spent amounts if this is an expense
         if (savedTransaction.getType() == Transaction.TransactionType.EXPENSE) {
-            budgetService.updateBudgetSpentAmounts(savedTransaction.getUser(), savedTransaction.getCategory(), savedTransaction.getDate());
+            budgetService.applyExpenseDelta(savedTransaction.getUser(), savedTransaction.getCategory(),
+                    savedTransaction.getDate(), savedTransaction.getAmount());
         }
         
         return savedTransaction;
@@ -101,6 +235,7 @@ public class TransactionService {
                     Category originalCategory = transaction.getCategory();
                     LocalDate originalDate = transaction.getDate();
                     Transaction.TransactionType originalType = transaction.getType();
+                    BigDecimal originalAmount = transaction.getAmount();
                     
                     transaction.setDescription(updatedTransaction.getDescription());
                     transaction.setAmount(updatedTransaction.getAmount());
@@ -110,11 +245,19 @@ public class TransactionService {
                     transaction.setNotes(updatedTransaction.getNotes());
                     
                     Transaction saved = transactionRepository.save(transaction);
+                    monthlyRollupService.recordRemoved(originalUser, originalCategory, originalType, originalDate, originalAmount);
+                    monthlyRollupService.recordAdded(saved);
+                    transactionSearchService.indexAfterCommit(saved);
+                    transactionAnalyticsService.recordSavedAfterCommit(saved);
+                    changeLogService.record(saved.getUser().getId(), ChangeLogEntry.EntityType.TRANSACTION,
+                            saved.getId(), ChangeLogEntry.Operation.UPDATE);
                     
-                    // Update budget amounts for both old and new categories/dates if this affects expenses
-                    if (originalType == Transaction.TransactionType.EXPENSE || saved.getType() == Transaction.TransactionType.EXPENSE) {
-                        budgetService.updateBudgetSpentAmounts(originalUser, originalCategory, originalDate);
-                        budgetService.updateBudgetSpentAmounts(saved.getUser(), saved.getCategory(), saved.getDate());
+                    // Move the expense out of the budgets covering the old values and into those covering the new ones
+                    if (originalType == Transaction.TransactionType.EXPENSE) {
+                        budgetService.applyExpenseDelta(originalUser, originalCategory, originalDate, originalAmount.negate());
+                    }
+                    if (saved.getType() == Transaction.TransactionType.EXPENSE) {
+                        budgetService.applyExpenseDelta(saved.getUser(), saved.getCategory(), saved.getDate(), saved.getAmount());
                     }
                     
                     return saved;
@@ -127,23 +270,28 @@ public class TransactionService {
         if (transactionOpt.isPresent()) {
             Transaction transaction = transactionOpt.get();
             transactionRepository.deleteById(id);
+            monthlyRollupService.recordRemoved(transaction.getUser(), transaction.getCategory(),
+                    transaction.getType(), transaction.getDate(), transaction.getAmount());
+            transactionSearchService.removeAfterCommit(transaction.getUser().getId(), id);
+            transactionAnalyticsService.recordDeletedAfterCommit(transaction.getUser().getId(), id);
+            changeLogService.record(transaction.getUser().getId(), ChangeLogEntry.EntityType.TRANSACTION,
+                    id, ChangeLogEntry.Operation.DELETE);
             
             // Update budget spent amounts if this was an expense
             if (transaction.getType() == Transaction.TransactionType.EXPENSE) {
-                budgetService.updateBudgetSpentAmounts(transaction.getUser(), transaction.getCategory(), transaction.getDate());
+                budgetService.applyExpenseDelta(transaction.getUser(), transaction.getCategory(),
+                        transaction.getDate(), transaction.getAmount().negate());
             }
         }
     }
     
     // Financial calculation methods
     public BigDecimal getTotalIncomeByUser(User user) {
-        BigDecimal total = transactionRepository.sumAmountByUserAndType(user, Transaction.TransactionType.INCOME);
-        return total != null ? total : BigDecimal.ZERO;
+        return monthlyRollupService.getTotalByUserAndType(user, Transaction.TransactionType.INCOME);
     }
     
     public BigDecimal getTotalExpenseByUser(User user) {
-        BigDecimal total = transactionRepository.sumAmountByUserAndType(user, Transaction.TransactionType.EXPENSE);
-        return total != null ? total : BigDecimal.ZERO;
+        return monthlyRollupService.getTotalByUserAndType(user, Transaction.TransactionType.EXPENSE);
     }
     
     public BigDecimal getNetIncomeByUser(User user) {
@@ -151,26 +299,39 @@ public class TransactionService {
     }
     
     public BigDecimal getTotalIncomeByUserAndDateRange(User user, LocalDate startDate, LocalDate endDate) {
-        BigDecimal total = transactionRepository.sumAmountByUserAndTypeAndDateBetween(user, Transaction.TransactionType.INCOME, startDate, endDate);
-        return total != null ? total : BigDecimal.ZERO;
+        return monthlyRollupService.getTotalByUserAndTypeAndDateRange(user, Transaction.TransactionType.INCOME, startDate, endDate);
     }
     
     public BigDecimal getTotalExpenseByUserAndDateRange(User user, LocalDate startDate, LocalDate endDate) {
-        BigDecimal total = transactionRepository.sumAmountByUserAndTypeAndDateBetween(user, Transaction.TransactionType.EXPENSE, startDate, endDate);
-        return total != null ? total : BigDecimal.ZERO;
+        return monthlyRollupService.getTotalByUserAndTypeAndDateRange(user, Transaction.TransactionType.EXPENSE, startDate, endDate);
     }
     
     public BigDecimal getNetIncomeByUserAndDateRange(User user, LocalDate startDate, LocalDate endDate) {
-        return getTotalIncomeByUserAndDateRange(user, startDate, endDate)
-                .subtract(getTotalExpenseByUserAndDateRange(user, startDate, endDate));
+        Map<Transaction.TransactionType, TypeTotal> totals = monthlyRollupService.getTotalsByType(user, startDate, endDate);
+        return totals.get(Transaction.TransactionType.INCOME).total()
+                .subtract(totals.get(Transaction.TransactionType.EXPENSE).total());
     }
     
     public BigDecimal getTotalExpenseByCategoryAndDateRange(User user, Category category, LocalDate startDate, LocalDate endDate) {
-        BigDecimal total = transactionRepository.sumAmountByUserAndCategoryAndDateBetween(user, category, startDate, endDate);
-        return total != null ? total : BigDecimal.ZERO;
+        return monthlyRollupService.getTotalByCategoryAndDateRange(user, category, startDate, endDate);
+    }
+    
+    public long getTransactionCountByUser(User user) {
+        return monthlyRollupService.getCountByUser(user);
     }
     
     public long getTransactionCountByUserAndDateRange(User user, LocalDate startDate, LocalDate endDate) {
-        return transactionRepository.countByUserAndDateBetween(user, startDate, endDate);
+        return monthlyRollupService.getCountByUserAndDateRange(user, startDate, endDate);
+    }
+    
+    public Map<Transaction.TransactionType, TypeTotal> getTotalsByTypeAndDateRange(User user, LocalDate startDate, LocalDate endDate) {
+        return monthlyRollupService.getTotalsByType(user, startDate, endDate);
+    }
+    
+    public List<CategoryTypeTotal> getTotalsByCategoryAndDateRange(User user, LocalDate startDate, LocalDate endDate) {
+        if (transactionAnalyticsService.isEnabled()) {
+            return transactionAnalyticsService.getTotalsByCategory(user.getId(), startDate, endDate);
+        }
+        return monthlyRollupService.getTotalsByCategoryAndType(user, startDate, endDate);
     }
 }
@@ -1,6 +1,7 @@
 package com.finance.manager.service;
 
 import com.finance.manager.entity.User;
+import com.finance.manager.repository.MonthlyRollupRepository;
 import com.finance.manager.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -17,6 +18,18 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private MonthlyRollupRepository monthlyRollupRepository;
+    
+    @Autowired
+    private CategoryCache categoryCache;
+    
+    @Autowired
+    private BudgetWindowIndex budgetWindowIndex;
+    
+    @Autowired
+    private TransactionAnalyticsService transactionAnalyticsService;
+    
     @Autowired
     private PasswordEncoder passwordEncoder;
     
@@ -85,7 +98,11 @@ public class UserService {
     }
     
     public void deleteUser(Long id) {
+        userRepository.findById(id).ifPresent(monthlyRollupRepository::deleteByUser);
         userRepository.deleteById(id);
+        categoryCache.invalidateAfterCommit(id);
+        budgetWindowIndex.invalidateAfterCommit(id);
+        transactionAnalyticsService.invalidateAfterCommit(id);
     }
     
     public boolean existsByUsername(String username) {
@@ -0,0 +1,287 @@
+package com.finance.manager.service;
+
+import com.finance.manager.dto.CategoryTypeTotal;
+import com.finance.manager.dto.TransactionItem;
+import com.finance.manager.dto.YearlyReport;
+import com.finance.manager.entity.Budget;
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.Transaction;
+import com.finance.manager.entity.User;
+import com.finance.manager.repository.BudgetRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds {@link YearlyReport}s. The date range is split into calendar month partitions which
+ * are aggregated in parallel on the report pool with the same grouped SUM queries a sequential
+ * report would run, then merged; sums are exact decimals, and the top expenses are merged in
+ * (amount desc, id) order, so the result does not depend on how the work was split.
+ *
+ * Budget adherence is recomputed from the transactions rather than read from the stored spent
+ * amounts, which stop moving once a budget is deactivated. Partitions are therefore extended to
+ * cover the windows of all budgets overlapping the report range.
+ *
+ * Reports deliberately run outside a transaction: the budgets are loaded in the repository's own
+ * short transaction, and each partition query borrows a pooled connection only while it runs, so
+ * a caller waiting on the report pool holds no connection. The partitions therefore do not share
+ * a snapshot; a write committed while a report is running may be counted in some months and not
+ * in others, and appears consistently on the next report.
+ *
+ * With columnar analytics enabled, the month by category totals and the budget spending are
+ * summed from the user's columns in {@link TransactionAnalyticsService} instead, and the
+ * partitions cover only the reported months, to fetch their top expenses.
+ */
+@Service
+public class YearlyReportService {
+
+    private static final int TOP_EXPENSES = 10;
+
+    private static final int MAX_YEARS = 20;
+
+    private static final String TOTALS_SQL =
+            "SELECT t.date, t.category_id, t.type, SUM(t.amount) FROM transactions t " +
+            "WHERE t.user_id = ? AND t.date BETWEEN ? AND ? GROUP BY t.date, t.category_id, t.type";
+
+    private static final String TOP_EXPENSES_SQL =
+            "SELECT t.id, t.date, t.description, t.amount, t.category_id, c.name FROM transactions t " +
+            "JOIN categories c ON c.id = t.category_id " +
+            "WHERE t.user_id = ? AND t.type = 'EXPENSE' AND t.date BETWEEN ? AND ? ORDER BY t.amount DESC, t.id LIMIT ?";
+
+    private static final Comparator<TransactionItem> LARGEST_FIRST =
+            Comparator.comparing(TransactionItem::amount).reversed().thenComparing(TransactionItem::id);
+
+    private static final Transaction.TransactionType[] TYPES = Transaction.TransactionType.values();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ForkJoinPool reportPool;
+
+    @Autowired
+    private TransactionAnalyticsService transactionAnalyticsService;
+
+    // Aggregates of a run of month partitions
+    private static final class Partial {
+
+        // Month -> category id -> totals by type ordinal, for months inside the report range
+        private final Map<YearMonth, Map<Long, BigDecimal[]>> cells = new HashMap<>();
+        private final BigDecimal[] budgetSpent;
+        private List<TransactionItem> topExpenses = List.of();
+
+        Partial(int budgets) {
+            budgetSpent = new BigDecimal[budgets];
+            Arrays.fill(budgetSpent, BigDecimal.ZERO);
+        }
+
+        Partial merge(Partial other) {
+            cells.putAll(other.cells);
+            for (int i = 0; i < budgetSpent.length; i++) {
+                budgetSpent[i] = budgetSpent[i].add(other.budgetSpent[i]);
+            }
+            List<TransactionItem> merged = new ArrayList<>(topExpenses);
+            merged.addAll(other.topExpenses);
+            merged.sort(LARGEST_FIRST);
+            topExpenses = merged.subList(0, Math.min(TOP_EXPENSES, merged.size()));
+            return this;
+        }
+    }
+
+    // Splits its months in halves until a single month is left to aggregate
+    private final class PartitionTask extends RecursiveTask<Partial> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Long userId;
+        private final List<YearMonth> months;
+        private final YearMonth firstReported;
+        private final YearMonth lastReported;
+        private final List<Budget> budgets;
+        // Totals come from the columns, so only the top expenses are queried
+        private final boolean columnar;
+
+        PartitionTask(Long userId, List<YearMonth> months, YearMonth firstReported, YearMonth lastReported,
+                      List<Budget> budgets, boolean columnar) {
+            this.userId = userId;
+            this.months = months;
+            this.firstReported = firstReported;
+            this.lastReported = lastReported;
+            this.budgets = budgets;
+            this.columnar = columnar;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (months.size() == 1) {
+                return aggregate(months.get(0));
+            }
+            int middle = months.size() / 2;
+            PartitionTask left = new PartitionTask(userId, months.subList(0, middle), firstReported, lastReported, budgets, columnar);
+            PartitionTask right = new PartitionTask(userId, months.subList(middle, months.size()), firstReported, lastReported,
+                    budgets, columnar);
+            left.fork();
+            Partial rightResult = right.compute();
+            return left.join().merge(rightResult);
+        }
+
+        private Partial aggregate(YearMonth month) {
+            Partial partial = new Partial(budgets.size());
+            boolean reported = !month.isBefore(firstReported) && !month.isAfter(lastReported);
+            Map<Long, BigDecimal[]> cells = new HashMap<>();
+            Date start = Date.valueOf(month.atDay(1));
+            Date end = Date.valueOf(month.atEndOfMonth());
+
+            if (!columnar) {
+                jdbcTemplate.query(TOTALS_SQL, rs -> {
+                    LocalDate date = rs.getDate(1).toLocalDate();
+                    long categoryId = rs.getLong(2);
+                    Transaction.TransactionType type = Transaction.TransactionType.valueOf(rs.getString(3));
+                    BigDecimal sum = rs.getBigDecimal(4);
+                    if (reported) {
+                        BigDecimal[] totals = cells.computeIfAbsent(categoryId, id -> zeros());
+                        totals[type.ordinal()] = totals[type.ordinal()].add(sum);
+                    }
+                    if (type == Transaction.TransactionType.EXPENSE) {
+                        for (int i = 0; i < budgets.size(); i++) {
+                            Budget budget = budgets.get(i);
+                            if (budget.getCategory().getId() == categoryId
+                                    && !date.isBefore(budget.getStartDate()) && !date.isAfter(budget.getEndDate())) {
+                                partial.budgetSpent[i] = partial.budgetSpent[i].add(sum);
+                            }
+                        }
+                    }
+                }, userId, start, end);
+            }
+
+            if (reported) {
+                partial.cells.put(month, cells);
+                partial.topExpenses = jdbcTemplate.query(TOP_EXPENSES_SQL, (rs, rowNum) -> new TransactionItem(
+                        rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getString(3), rs.getBigDecimal(4),
+                        Transaction.TransactionType.EXPENSE, rs.getLong(5), rs.getString(6), null),
+                        userId, start, end, TOP_EXPENSES);
+            }
+            return partial;
+        }
+    }
+
+    public YearlyReport generate(User user, int startYear, int endYear) {
+        if (endYear < startYear) {
+            throw new IllegalArgumentException("End year must not be before start year");
+        }
+        if (endYear - startYear >= MAX_YEARS) {
+            throw new IllegalArgumentException("A report can cover at most " + MAX_YEARS + " years");
+        }
+        YearMonth firstReported = YearMonth.of(startYear, 1);
+        YearMonth lastReported = YearMonth.of(endYear, 12);
+        // Loaded in the repository's own transaction, released before the partitions start
+        List<Budget> budgets = budgetRepository.findByUserOverlapping(user, firstReported.atDay(1), lastReported.atEndOfMonth());
+        boolean columnar = transactionAnalyticsService.isEnabled();
+
+        YearMonth first = firstReported;
+        YearMonth last = lastReported;
+        if (!columnar) {
+            for (Budget budget : budgets) {
+                first = YearMonth.from(budget.getStartDate()).isBefore(first) ? YearMonth.from(budget.getStartDate()) : first;
+                last = YearMonth.from(budget.getEndDate()).isAfter(last) ? YearMonth.from(budget.getEndDate()) : last;
+            }
+        }
+        List<YearMonth> partitions = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            partitions.add(month);
+        }
+
+        Partial result = reportPool.invoke(new PartitionTask(user.getId(), partitions, firstReported, lastReported, budgets, columnar));
+        if (columnar) {
+            addColumnarTotals(user.getId(), firstReported, lastReported, budgets, result);
+        }
+        return build(user, startYear, endYear, firstReported, lastReported, budgets, result);
+    }
+
+    // One scan of the columns per budget window and one for the whole matrix
+    private void addColumnarTotals(Long userId, YearMonth firstReported, YearMonth lastReported, List<Budget> budgets,
+                                   Partial result) {
+        result.cells.putAll(transactionAnalyticsService.sumByMonthAndCategory(userId, firstReported, lastReported));
+        for (int i = 0; i < budgets.size(); i++) {
+            Budget budget = budgets.get(i);
+            for (CategoryTypeTotal total : transactionAnalyticsService.getTotalsByCategory(userId, budget.getStartDate(), budget.getEndDate())) {
+                if (total.type() == Transaction.TransactionType.EXPENSE && total.categoryId().equals(budget.getCategory().getId())) {
+                    result.budgetSpent[i] = total.total();
+                }
+            }
+        }
+    }
+
+    private YearlyReport build(User user, int startYear, int endYear, YearMonth firstReported, YearMonth lastReported,
+                               List<Budget> budgets, Partial result) {
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = firstReported; !month.isAfter(lastReported); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+
+        List<BigDecimal> monthlyIncome = new ArrayList<>(Collections.nCopies(months.size(), BigDecimal.ZERO));
+        List<BigDecimal> monthlyExpense = new ArrayList<>(Collections.nCopies(months.size(), BigDecimal.ZERO));
+        List<YearlyReport.CategoryRow> expenseRows = new ArrayList<>();
+        List<YearlyReport.CategoryRow> incomeSources = new ArrayList<>();
+        for (Category category : categoryService.findByUserOrderByTypeAndName(user)) {
+            for (Transaction.TransactionType type : TYPES) {
+                List<BigDecimal> monthly = new ArrayList<>(months.size());
+                BigDecimal total = BigDecimal.ZERO;
+                for (YearMonth month : months) {
+                    BigDecimal[] totals = result.cells.getOrDefault(month, Map.of()).get(category.getId());
+                    BigDecimal amount = totals != null ? totals[type.ordinal()] : BigDecimal.ZERO;
+                    monthly.add(amount);
+                    total = total.add(amount);
+                }
+                if (total.signum() == 0) {
+                    continue;
+                }
+                List<BigDecimal> monthlyTotals = type == Transaction.TransactionType.INCOME ? monthlyIncome : monthlyExpense;
+                for (int i = 0; i < months.size(); i++) {
+                    monthlyTotals.set(i, monthlyTotals.get(i).add(monthly.get(i)));
+                }
+                YearlyReport.CategoryRow row = new YearlyReport.CategoryRow(category.getId(), category.getName(), type, monthly, total);
+                (type == Transaction.TransactionType.INCOME ? incomeSources : expenseRows).add(row);
+            }
+        }
+        incomeSources.sort(Comparator.comparing(YearlyReport.CategoryRow::total).reversed());
+
+        List<YearlyReport.BudgetAdherence> adherence = new ArrayList<>(budgets.size());
+        for (int i = 0; i < budgets.size(); i++) {
+            Budget budget = budgets.get(i);
+            adherence.add(new YearlyReport.BudgetAdherence(budget.getId(), budget.getName(), budget.getCategory().getName(),
+                    budget.getStartDate(), budget.getEndDate(), budget.getAmount(), result.budgetSpent[i]));
+        }
+
+        return new YearlyReport(startYear, endYear, months, expenseRows, incomeSources, monthlyIncome, monthlyExpense,
+                monthlyIncome.stream().reduce(BigDecimal.ZERO, BigDecimal::add),
+                monthlyExpense.stream().reduce(BigDecimal.ZERO, BigDecimal::add),
+                result.topExpenses, adherence);
+    }
+
+    private static BigDecimal[] zeros() {
+        BigDecimal[] totals = new BigDecimal[TYPES.length];
+        Arrays.fill(totals, BigDecimal.ZERO);
+        return totals;
+    }
+}
@@ -0,0 +1,19 @@
+package com.finance.manager.util;
+
+/**
+ * Minimal RFC 4180 helpers; records are read back with {@link CsvReader}.
+ */
+public final class Csv {
+    
+    private Csv() {}
+    
+    public static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
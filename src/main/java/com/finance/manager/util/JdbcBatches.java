@@ -0,0 +1,42 @@
+package com.finance.manager.util;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC batch inserts that hand back the keys the database generated for their rows.
+ */
+public final class JdbcBatches {
+    
+    private JdbcBatches() {}
+    
+    // Runs the insert for every row of the setter as one batch; returns the generated ids in row order
+    public static List<Long> insertReturningIds(JdbcTemplate jdbcTemplate, String sql, BatchPreparedStatementSetter setter) {
+        return jdbcTemplate.execute((Connection con) -> con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS),
+                (PreparedStatement ps) -> {
+                    int size = setter.getBatchSize();
+                    for (int i = 0; i < size; i++) {
+                        setter.setValues(ps, i);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    List<Long> ids = new ArrayList<>(size);
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        while (keys.next()) {
+                            ids.add(keys.getLong(1));
+                        }
+                    }
+                    if (ids.size() != size) {
+                        throw new IllegalStateException("Expected " + size + " generated keys but got " + ids.size());
+                    }
+                    return ids;
+                });
+    }
+}
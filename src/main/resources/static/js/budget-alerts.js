@@ -0,0 +1,59 @@
+// Shows live budget threshold alerts pushed by /budgets/alerts as Bootstrap toasts
+(function () {
+    if (!window.EventSource) {
+        return;
+    }
+
+    function container() {
+        var element = document.getElementById('budgetAlertToasts');
+        if (!element) {
+            element = document.createElement('div');
+            element.id = 'budgetAlertToasts';
+            element.className = 'toast-container position-fixed bottom-0 end-0 p-3';
+            element.style.zIndex = '1080';
+            document.body.appendChild(element);
+        }
+        return element;
+    }
+
+    function show(alert) {
+        var toast = document.createElement('div');
+        toast.className = 'toast align-items-center border-0 text-white ' + (alert.exceeded ? 'bg-danger' : 'bg-success');
+        toast.setAttribute('role', 'alert');
+
+        var body = document.createElement('div');
+        body.className = 'toast-body';
+        var spent = Number(alert.spentAmount).toFixed(2);
+        var amount = Number(alert.amount).toFixed(2);
+        body.textContent = alert.exceeded
+            ? alert.budgetName + ' reached ' + alert.threshold + '% of its budget ($' + spent + ' of $' + amount + ').'
+            : alert.budgetName + ' is back below ' + alert.threshold + '% of its budget ($' + spent + ' of $' + amount + ').';
+
+        var link = document.createElement('a');
+        link.href = '/budgets/' + alert.budgetId;
+        link.className = 'text-white ms-2';
+        link.textContent = 'View';
+        body.appendChild(link);
+
+        var wrapper = document.createElement('div');
+        wrapper.className = 'd-flex';
+        var close = document.createElement('button');
+        close.type = 'button';
+        close.className = 'btn-close btn-close-white me-2 m-auto';
+        close.setAttribute('data-bs-dismiss', 'toast');
+        wrapper.appendChild(body);
+        wrapper.appendChild(close);
+        toast.appendChild(wrapper);
+
+        container().appendChild(toast);
+        toast.addEventListener('hidden.bs.toast', function () {
+            toast.remove();
+        });
+        new bootstrap.Toast(toast, { delay: 10000 }).show();
+    }
+
+    var source = new EventSource('/budgets/alerts');
+    source.addEventListener('budget-alert', function (event) {
+        show(JSON.parse(event.data));
+    });
+})();
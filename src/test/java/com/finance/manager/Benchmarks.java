@@ -0,0 +1,39 @@
+package com.finance.manager;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+
+/**
+ * Helpers for the JMH benchmarks under src/test/java. Benchmarks are named *Benchmark so surefire
+ * skips them; each has a main method and is run from the test classpath after a test-compile:
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test.classpath
+ * java -cp target/test-classes:target/classes:$(cat target/test.classpath) com.finance.manager.service.BudgetWindowIndexBenchmark
+ * </pre>
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    // Starts the application without a web server on its own in-memory database; the given properties
+    // override the application's. DevTools would relaunch it in a restart class loader, so it is off
+    public static ConfigurableApplicationContext startApplication(String... properties) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return new SpringApplicationBuilder(PersonalFinanceManagerApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("benchmark")
+                .run(Arrays.stream(properties).map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    public static void run(Class<?> benchmark) throws RunnerException {
+        new Runner(new OptionsBuilder().include(benchmark.getName()).build()).run();
+    }
+}
@@ -0,0 +1,16 @@
+package com.finance.manager;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Base class of the tests that run against the full application on an in-memory database. All of
+ * them share one configuration, so the application context is started once per test run; each
+ * test works on its own user to stay independent of the others.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public abstract class IntegrationTest {
+}
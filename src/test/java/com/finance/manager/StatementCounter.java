@@ -0,0 +1,34 @@
+package com.finance.manager;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread, so a test can measure a
+ * service call without picking up the schedulers' queries. The statements themselves are kept
+ * for tests that look at their plans. Registered through the test profile.
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> statements = ThreadLocal.withInitial(ArrayList::new);
+
+    public static void reset() {
+        statements.get().clear();
+    }
+
+    public static int count() {
+        return statements.get().size();
+    }
+
+    public static List<String> statements() {
+        return List.copyOf(statements.get());
+    }
+
+    @Override
+    public String inspect(String sql) {
+        statements.get().add(sql);
+        return sql;
+    }
+}
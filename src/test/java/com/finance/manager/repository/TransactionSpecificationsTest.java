@@ -0,0 +1,105 @@
+package com.finance.manager.repository;
+
+import com.finance.manager.IntegrationTest;
+import com.finance.manager.StatementCounter;
+import com.finance.manager.dto.TransactionFilter;
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.Transaction;
+import com.finance.manager.entity.User;
+import com.finance.manager.service.CategoryService;
+import com.finance.manager.service.TransactionService;
+import com.finance.manager.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionSpecificationsTest extends IntegrationTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 3, 31);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Category groceries;
+
+    @BeforeEach
+    void createTransactions() {
+        String username = "spec-plan-" + System.nanoTime();
+        user = userService.createUser(username, username + "@example.com", "password", "Spec", "Plan");
+        groceries = categoryService.createCategory(username + " groceries", null, Category.CategoryType.EXPENSE, user);
+        Category rent = categoryService.createCategory(username + " rent", null, Category.CategoryType.EXPENSE, user);
+        for (int day = 0; day < 365; day++) {
+            LocalDate date = START.minusMonths(3).plusDays(day);
+            Category category = day % 2 == 0 ? groceries : rent;
+            transactionService.createTransaction("Expense", new BigDecimal("5.00"), date,
+                    Transaction.TransactionType.EXPENSE, user, category, null);
+        }
+    }
+
+    @Test
+    void categoryAndDateFilterUsesTheCategoryIndex() {
+        TransactionFilter filter = new TransactionFilter(START, END, groceries.getId(), null, null, null, null);
+
+        String plan = explainFilterQuery(filter, List.of(user.getId(), groceries.getId(), Date.valueOf(START), Date.valueOf(END)));
+
+        assertThat(plan).containsIgnoringCase("idx_transactions_user_category_date");
+    }
+
+    @Test
+    void typeAndDateFilterUsesTheTypeIndex() {
+        TransactionFilter filter = new TransactionFilter(START, END, null, Transaction.TransactionType.EXPENSE, null, null, null);
+
+        String plan = explainFilterQuery(filter, List.of(user.getId(), Transaction.TransactionType.EXPENSE.name(),
+                Date.valueOf(START), Date.valueOf(END)));
+
+        assertThat(plan).containsIgnoringCase("idx_transactions_user_type_date");
+    }
+
+    @Test
+    void filterReturnsOnlyMatchingRowsInOneQuery() {
+        TransactionFilter filter = new TransactionFilter(START, END, groceries.getId(), null, null, null, null);
+
+        StatementCounter.reset();
+        List<Transaction> latest = transactionService.findLatestByFilter(user, filter, 1000);
+
+        assertThat(StatementCounter.count()).isEqualTo(1);
+        assertThat(latest).isNotEmpty().allSatisfy(transaction -> {
+            assertThat(transaction.getCategory().getId()).isEqualTo(groceries.getId());
+            assertThat(transaction.getDate()).isBetween(START, END);
+        });
+    }
+
+    // Runs the filter, then asks H2 for the plan of the SQL it produced. The criteria are bound in
+    // predicate order and the LIMIT is bound last.
+    private String explainFilterQuery(TransactionFilter filter, List<Object> criteria) {
+        StatementCounter.reset();
+        transactionService.findLatestByFilter(user, filter, 20);
+        String sql = StatementCounter.statements().get(0);
+
+        List<Object> parameters = new ArrayList<>(criteria);
+        while (parameters.size() < sql.chars().filter(c -> c == '?').count()) {
+            parameters.add(20);
+        }
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parameters.toArray());
+    }
+}
@@ -0,0 +1,63 @@
+package com.finance.manager.security;
+
+import com.finance.manager.IntegrationTest;
+import com.finance.manager.StatementCounter;
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.User;
+import com.finance.manager.service.CategoryService;
+import com.finance.manager.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CurrentUserArgumentResolverTest extends IntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    // Each page used to look the user up by name before doing its own work
+    @Test
+    void pagesDoNotReadTheUsersTable() throws Exception {
+        User user = userService.createUser("current-user", "current-user@example.com", "password", "Current", "User");
+        Category category = categoryService.createCategory("current-user food", null, Category.CategoryType.EXPENSE, user);
+        UserPrincipal principal = new UserPrincipal(user);
+
+        int statements = 0;
+        for (String page : List.of("/dashboard", "/transactions", "/transactions/new", "/budgets", "/categories",
+                "/categories/" + category.getId())) {
+            StatementCounter.reset();
+            mockMvc.perform(get(page).with(user(principal))).andExpect(status().isOk());
+            statements += StatementCounter.count();
+            assertThat(StatementCounter.statements())
+                    .as(page)
+                    .noneMatch(sql -> sql.toLowerCase(Locale.ROOT).matches("(?s).*\\b(from|join) users\\b.*"));
+        }
+        // The pages did query the database, just not for the user
+        assertThat(statements).isPositive();
+    }
+
+    @Test
+    void usernameLookupReadsTheUsersTable() {
+        User user = userService.createUser("current-user-lookup", "current-user-lookup@example.com", "password", "Current", "User");
+
+        // The insert evicted the cached lookup, so the first one after it reaches the database
+        StatementCounter.reset();
+        assertThat(userService.findByUsername(user.getUsername())).isPresent();
+        assertThat(StatementCounter.statements())
+                .anyMatch(sql -> sql.toLowerCase(Locale.ROOT).matches("(?s).*\\bfrom users\\b.*"));
+    }
+}
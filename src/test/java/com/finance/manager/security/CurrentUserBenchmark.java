@@ -0,0 +1,81 @@
+package com.finance.manager.security;
+
+import com.finance.manager.Benchmarks;
+import com.finance.manager.entity.User;
+import com.finance.manager.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request cost of identifying the signed-in user: the username lookup every controller
+ * used to run against the user reference {@link CurrentUserArgumentResolver} now builds from the
+ * principal's id. The lookup is measured with and without the query cache that fronts it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrentUserBenchmark {
+
+    @Param({"false", "true"})
+    public boolean queryCache;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private CurrentUserArgumentResolver resolver;
+    private String username;
+
+    @Setup(Level.Trial)
+    public void signIn() {
+        context = Benchmarks.startApplication("spring.jpa.properties.hibernate.cache.use_query_cache=" + queryCache);
+        userService = context.getBean(UserService.class);
+        resolver = context.getBean(CurrentUserArgumentResolver.class);
+        User user = userService.createUser("benchmark", "benchmark@example.com", "password", "Bench", "Mark");
+        username = user.getUsername();
+
+        // JMH may measure on another thread than the one running this setup
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        UserPrincipal principal = new UserPrincipal(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Benchmark
+    public User usernameLookup() {
+        return userService.findByUsername(username).orElseThrow();
+    }
+
+    @Benchmark
+    public Object principalReference() {
+        return resolver.resolveArgument(null, null, null, null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Benchmarks.run(CurrentUserBenchmark.class);
+    }
+}
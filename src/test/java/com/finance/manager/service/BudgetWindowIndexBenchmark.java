@@ -0,0 +1,117 @@
+package com.finance.manager.service;
+
+import com.finance.manager.Benchmarks;
+import com.finance.manager.entity.Budget;
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.User;
+import com.finance.manager.repository.BudgetRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving the budgets that cover a transaction's date: the in-memory window index against the
+ * range query it replaced on the write path. Each call looks up the next category and date of a
+ * fixed pseudo-random sequence. windowIndex looks up windows already checked against the user's
+ * version, as every date after the first of a flush does; windowIndexWithVersionCheck also reads
+ * the version, as a flush touching a single date does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BudgetWindowIndexBenchmark {
+
+    private static final LocalDate START = LocalDate.of(2020, 1, 1);
+    private static final int LOOKUPS = 1024;
+
+    // Monthly budgets per category, one per month going back from 2020
+    @Param({"12", "120"})
+    public int budgetsPerCategory;
+
+    private ConfigurableApplicationContext context;
+    private BudgetWindowIndex budgetWindowIndex;
+    private BudgetRepository budgetRepository;
+    private User user;
+    private BudgetWindowIndex.UserWindows userWindows;
+    private final List<Category> categories = new ArrayList<>();
+    private final Category[] lookupCategories = new Category[LOOKUPS];
+    private final LocalDate[] lookupDates = new LocalDate[LOOKUPS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createBudgets() {
+        context = Benchmarks.startApplication();
+        budgetWindowIndex = context.getBean(BudgetWindowIndex.class);
+        budgetRepository = context.getBean(BudgetRepository.class);
+        BudgetService budgetService = context.getBean(BudgetService.class);
+        CategoryService categoryService = context.getBean(CategoryService.class);
+
+        user = context.getBean(UserService.class).createUser("benchmark", "benchmark@example.com", "password", "Bench", "Mark");
+        for (int c = 0; c < 8; c++) {
+            Category category = categoryService.createCategory("Benchmark " + c, null, Category.CategoryType.EXPENSE, user);
+            categories.add(category);
+            for (int month = 0; month < budgetsPerCategory; month++) {
+                LocalDate start = START.minusMonths(month);
+                budgetService.createBudget("Budget " + c + "-" + month, new BigDecimal("100.00"), start,
+                        start.plusMonths(1).minusDays(1), Budget.BudgetPeriod.MONTHLY, user, category, null, 80);
+            }
+        }
+
+        userWindows = budgetWindowIndex.windowsOf(user.getId());
+
+        long seed = 42;
+        for (int i = 0; i < LOOKUPS; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            lookupCategories[i] = categories.get((int) ((seed >>> 33) % categories.size()));
+            lookupDates[i] = START.minusDays((seed >>> 40) % (budgetsPerCategory * 30L));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Long> windowIndex() {
+        int i = next++ & (LOOKUPS - 1);
+        return userWindows.findCovering(lookupCategories[i].getId(), lookupDates[i]);
+    }
+
+    @Benchmark
+    public List<Long> windowIndexWithVersionCheck() {
+        int i = next++ & (LOOKUPS - 1);
+        return budgetWindowIndex.findCovering(user.getId(), lookupCategories[i].getId(), lookupDates[i]);
+    }
+
+    @Benchmark
+    public List<Budget> rangeQuery() {
+        int i = next++ & (LOOKUPS - 1);
+        return budgetRepository.findActiveByCategoryAndDate(user, lookupCategories[i], lookupDates[i]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Benchmarks.run(BudgetWindowIndexBenchmark.class);
+    }
+}
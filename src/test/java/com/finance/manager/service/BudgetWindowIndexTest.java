@@ -0,0 +1,127 @@
+package com.finance.manager.service;
+
+import com.finance.manager.IntegrationTest;
+import com.finance.manager.entity.Budget;
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.User;
+import com.finance.manager.repository.BudgetRepository;
+import com.finance.manager.repository.BudgetWindowVersionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BudgetWindowIndexTest extends IntegrationTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Autowired
+    private BudgetWindowIndex budgetWindowIndex;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private BudgetWindowVersionRepository budgetWindowVersionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void findCoveringMatchesTheRangeQuery() {
+        User user = userService.createUser("window-index", "window-index@example.com", "password", "Window", "Index");
+        Category food = categoryService.createCategory("window-index food", null, Category.CategoryType.EXPENSE, user);
+        Category rent = categoryService.createCategory("window-index rent", null, Category.CategoryType.EXPENSE, user);
+        Category unbudgeted = categoryService.createCategory("window-index other", null, Category.CategoryType.EXPENSE, user);
+
+        // Back-to-back months, an overlapping quarter, a single day and a deactivated year
+        for (int month = 0; month < 6; month++) {
+            LocalDate start = START.plusMonths(month);
+            createBudget(user, food, "Food " + month, start, start.plusMonths(1).minusDays(1));
+        }
+        createBudget(user, food, "Food Q1", START, START.plusMonths(3).minusDays(1));
+        createBudget(user, rent, "Rent day", START.plusDays(40), START.plusDays(40));
+        Budget deactivated = createBudget(user, rent, "Rent year", START, START.plusYears(1).minusDays(1));
+        budgetService.deactivateBudget(deactivated.getId());
+
+        for (LocalDate date = START.minusDays(3); date.isBefore(START.plusMonths(7)); date = date.plusDays(1)) {
+            for (Category category : List.of(food, rent, unbudgeted)) {
+                List<Long> expected = budgetRepository.findActiveByCategoryAndDate(user, category, date).stream()
+                        .map(Budget::getId)
+                        .toList();
+                assertThat(budgetWindowIndex.findCovering(user.getId(), category.getId(), date))
+                        .as("%s on %s", category.getName(), date)
+                        .containsExactlyInAnyOrderElementsOf(expected);
+            }
+        }
+    }
+
+    @Test
+    void budgetChangesAreSeenByTheNextLookup() {
+        User user = userService.createUser("window-change", "window-change@example.com", "password", "Window", "Change");
+        Category category = categoryService.createCategory("window-change food", null, Category.CategoryType.EXPENSE, user);
+        assertThat(budgetWindowIndex.findCovering(user.getId(), category.getId(), START)).isEmpty();
+
+        Budget budget = createBudget(user, category, "Food", START, START.plusMonths(1).minusDays(1));
+        assertThat(budgetWindowIndex.findCovering(user.getId(), category.getId(), START)).containsExactly(budget.getId());
+
+        budgetService.deactivateBudget(budget.getId());
+        assertThat(budgetWindowIndex.findCovering(user.getId(), category.getId(), START)).isEmpty();
+    }
+
+    // A second index over the same database stands in for another node, which is never invalidated locally
+    @Test
+    void changesMadeOnAnotherNodeAreSeenByTheNextLookup() {
+        User user = userService.createUser("window-node", "window-node@example.com", "password", "Window", "Node");
+        Category category = categoryService.createCategory("window-node food", null, Category.CategoryType.EXPENSE, user);
+        BudgetWindowIndex otherNode = new BudgetWindowIndex(budgetRepository, budgetWindowVersionRepository,
+                jdbcTemplate, 100, new SimpleMeterRegistry());
+        assertThat(otherNode.findCovering(user.getId(), category.getId(), START)).isEmpty();
+        assertThat(otherNode.findCovering(user.getId(), category.getId(), START)).isEmpty();
+
+        Budget budget = createBudget(user, category, "Food", START, START.plusMonths(1).minusDays(1));
+        assertThat(otherNode.findCovering(user.getId(), category.getId(), START)).containsExactly(budget.getId());
+        assertThat(otherNode.findCovering(user.getId(), category.getId(), START)).containsExactly(budget.getId());
+
+        budgetService.deactivateBudget(budget.getId());
+        assertThat(otherNode.findCovering(user.getId(), category.getId(), START)).isEmpty();
+    }
+
+    @Test
+    void expiryBumpsOnlyTheVersionsOfAffectedUsers() {
+        User expiring = userService.createUser("window-expiring", "window-expiring@example.com", "password", "Window", "Expiring");
+        User other = userService.createUser("window-other", "window-other@example.com", "password", "Window", "Other");
+        Category expiringCategory = categoryService.createCategory("window-expiring food", null, Category.CategoryType.EXPENSE, expiring);
+        Category otherCategory = categoryService.createCategory("window-other food", null, Category.CategoryType.EXPENSE, other);
+        Budget expired = createBudget(expiring, expiringCategory, "Expired", START, START.plusMonths(1).minusDays(1));
+        createBudget(other, otherCategory, "Current", START, START.plusYears(1).minusDays(1));
+        long expiringVersion = budgetWindowVersionRepository.findVersionByUserId(expiring.getId()).orElseThrow();
+        long otherVersion = budgetWindowVersionRepository.findVersionByUserId(other.getId()).orElseThrow();
+
+        budgetService.deactivateExpiredBudgets(START.plusMonths(2), 1000);
+
+        assertThat(budgetRepository.findById(expired.getId()).orElseThrow().isActive()).isFalse();
+        assertThat(budgetWindowVersionRepository.findVersionByUserId(expiring.getId())).contains(expiringVersion + 1);
+        assertThat(budgetWindowVersionRepository.findVersionByUserId(other.getId())).contains(otherVersion);
+    }
+
+    private Budget createBudget(User user, Category category, String name, LocalDate start, LocalDate end) {
+        return budgetService.createBudget(name, new BigDecimal("100.00"), start, end, Budget.BudgetPeriod.CUSTOM,
+                user, category, null, 80);
+    }
+}
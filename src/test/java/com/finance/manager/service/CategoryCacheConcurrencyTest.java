@@ -0,0 +1,88 @@
+package com.finance.manager.service;
+
+import com.finance.manager.IntegrationTest;
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CategoryCacheConcurrencyTest extends IntegrationTest {
+
+    private static final int WRITES = 200;
+    private static final int READERS = 4;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void readStartedAfterACommitSeesTheCommittedCategory() throws Exception {
+        User user = userService.createUser("cache-race", "cache-race@example.com", "password", "Cache", "Race");
+        ExecutorService pool = Executors.newFixedThreadPool(READERS + 1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            // Readers keep reloading the list, so loads that began before a commit race its invalidation
+            List<Future<?>> readers = new ArrayList<>();
+            for (int i = 0; i < READERS; i++) {
+                readers.add(pool.submit(() -> {
+                    while (writing.get()) {
+                        categoryService.findByUserOrderByTypeAndName(user);
+                    }
+                }));
+            }
+
+            for (int i = 0; i < WRITES; i++) {
+                String name = "Category " + i;
+                categoryService.createCategory(name, null, Category.CategoryType.EXPENSE, user);
+
+                assertThat(namesOf(categoryService.findByUserOrderByTypeAndName(user))).contains(name);
+                Future<List<Category>> otherThread = pool.submit(() -> categoryService.findByUserOrderByTypeAndName(user));
+                assertThat(namesOf(otherThread.get())).contains(name);
+            }
+
+            writing.set(false);
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+            assertThat(categoryService.findByUserOrderByTypeAndName(user)).hasSize(WRITES);
+        } finally {
+            writing.set(false);
+            pool.shutdown();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void writerSeesItsOwnUncommittedCategory() {
+        User user = userService.createUser("cache-writer", "cache-writer@example.com", "password", "Cache", "Writer");
+        categoryService.findByUserOrderByTypeAndName(user);
+
+        List<Category> inTransaction = transactionTemplate.execute(status -> {
+            categoryService.createCategory("Uncommitted", null, Category.CategoryType.EXPENSE, user);
+            return categoryService.findByUserOrderByTypeAndName(user);
+        });
+
+        assertThat(namesOf(inTransaction)).contains("Uncommitted");
+        assertThat(namesOf(categoryService.findByUserOrderByTypeAndName(user))).contains("Uncommitted");
+    }
+
+    private static List<String> namesOf(List<Category> categories) {
+        return categories.stream().map(Category::getName).toList();
+    }
+}
@@ -0,0 +1,108 @@
+package com.finance.manager.service;
+
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cold category cache misses on a pool of two connections. Runs in its own application context
+ * and database, since the pool size is fixed when the context starts.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:finance-small-pool",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=5000"})
+@ActiveProfiles("test")
+class CategoryCachePoolTest {
+
+    private static final int USERS = 4;
+    private static final int REQUESTS_PER_USER = 4;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryCache categoryCache;
+
+    @Autowired
+    private UserService userService;
+
+    // Sixteen misses at once, eight times the pool; each must hold at most one connection
+    @Test
+    void coldMissesBeyondThePoolSizeAllLoad() throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            User user = userService.createUser("small-pool-" + u, "small-pool-" + u + "@example.com", "password", "Small", "Pool");
+            categoryService.createCategory("Pool " + u, null, Category.CategoryType.EXPENSE, user);
+            users.add(user);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(USERS * REQUESTS_PER_USER);
+        CyclicBarrier start = new CyclicBarrier(USERS * REQUESTS_PER_USER);
+        try {
+            List<Future<List<Category>>> requests = new ArrayList<>();
+            for (User user : users) {
+                for (int r = 0; r < REQUESTS_PER_USER; r++) {
+                    requests.add(pool.submit(() -> {
+                        start.await();
+                        return categoryService.findByUserOrderByTypeAndName(user);
+                    }));
+                }
+            }
+            for (int i = 0; i < requests.size(); i++) {
+                assertThat(requests.get(i).get(30, TimeUnit.SECONDS))
+                        .extracting(Category::getName)
+                        .contains("Pool " + i / REQUESTS_PER_USER);
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    // The load outlasts the barrier, so every other miss arrives while it is in flight
+    @Test
+    void concurrentMissesForAUserShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CyclicBarrier start = new CyclicBarrier(8);
+        try {
+            List<Future<List<Category>>> requests = new ArrayList<>();
+            for (int r = 0; r < 8; r++) {
+                requests.add(pool.submit(() -> {
+                    start.await();
+                    return categoryCache.get(Long.MAX_VALUE, () -> {
+                        loads.incrementAndGet();
+                        try {
+                            Thread.sleep(500);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return List.of();
+                    });
+                }));
+            }
+            for (Future<List<Category>> request : requests) {
+                assertThat(request.get(30, TimeUnit.SECONDS)).isEmpty();
+            }
+            assertThat(loads).hasValue(1);
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
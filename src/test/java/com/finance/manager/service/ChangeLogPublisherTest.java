@@ -0,0 +1,130 @@
+package com.finance.manager.service;
+
+import com.finance.manager.IntegrationTest;
+import com.finance.manager.dto.ChangeEvent;
+import com.finance.manager.dto.ImportProgress;
+import com.finance.manager.entity.Budget;
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.ChangeLogEntry;
+import com.finance.manager.entity.Transaction;
+import com.finance.manager.entity.User;
+import com.finance.manager.repository.ChangeLogRepository;
+import com.finance.manager.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeLogPublisherTest extends IntegrationTest {
+
+    @Autowired
+    private ChangeLogPublisher changeLogPublisher;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionImportService transactionImportService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void seqKeepsGrowingAfterEveryEntryIsPruned() {
+        User user = userService.createUser("change-feed", "change-feed@example.com", "password", "Change", "Feed");
+        categoryService.createCategory("change-feed before", null, Category.CategoryType.EXPENSE, user);
+        changeLogPublisher.publishPending();
+        List<ChangeEvent> before = changeLogRepository.findEventsAfter(user.getId(), 0L, PageRequest.of(0, 100));
+        assertThat(before).isNotEmpty();
+        long cursor = before.get(before.size() - 1).seq();
+
+        // A cutoff in the future prunes every published entry, including the highest seq
+        while (changeLogService.pruneChangedBefore(LocalDateTime.now().plusDays(1), 1000) > 0) {
+        }
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM change_log WHERE seq IS NOT NULL", Long.class)).isZero();
+
+        categoryService.createCategory("change-feed after", null, Category.CategoryType.EXPENSE, user);
+        changeLogPublisher.publishPending();
+
+        List<ChangeEvent> after = changeLogRepository.findEventsAfter(user.getId(), cursor, PageRequest.of(0, 100));
+        assertThat(after).hasSize(1);
+        assertThat(after.get(0).seq()).isGreaterThan(cursor);
+    }
+
+    @Test
+    void spentAmountMovedByATransactionWriteIsLogged() {
+        User user = userService.createUser("change-spent", "change-spent@example.com", "password", "Change", "Spent");
+        Category category = categoryService.createCategory("change-spent food", null, Category.CategoryType.EXPENSE, user);
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        Budget budget = budgetService.createBudget("Food", new BigDecimal("100.00"), start, start.plusMonths(1).minusDays(1),
+                Budget.BudgetPeriod.MONTHLY, user, category, null, 80);
+        changeLogPublisher.publishPending();
+        List<ChangeEvent> before = changeLogRepository.findEventsAfter(user.getId(), 0L, PageRequest.of(0, 100));
+        long cursor = before.get(before.size() - 1).seq();
+
+        transactionService.createTransaction("Groceries", new BigDecimal("12.50"), start.plusDays(3),
+                Transaction.TransactionType.EXPENSE, user, category, null);
+        changeLogPublisher.publishPending();
+
+        List<ChangeEvent> after = changeLogRepository.findEventsAfter(user.getId(), cursor, PageRequest.of(0, 100));
+        assertThat(after).anySatisfy(event -> {
+            assertThat(event.entityType()).isEqualTo(ChangeLogEntry.EntityType.BUDGET);
+            assertThat(event.entityId()).isEqualTo(budget.getId());
+            assertThat(event.operation()).isEqualTo(ChangeLogEntry.Operation.UPDATE);
+        });
+    }
+
+    @Test
+    void importedRowsAreLoggedOnceEachByTheirIds() throws Exception {
+        User user = userService.createUser("change-import", "change-import@example.com", "password", "Change", "Import");
+        categoryService.createCategory("change-import food", null, Category.CategoryType.EXPENSE, user);
+        Path file = Files.createTempFile("change-import-", ".csv");
+        Files.writeString(file, "date,description,amount,category\n" +
+                "2024-01-02,Bread,2.50,change-import food\n" +
+                "2024-01-03,Milk,1.20,change-import food\n" +
+                "2024-01-04,Cheese,6.80,change-import food\n");
+
+        ImportProgress progress = transactionImportService.startImport(user, file);
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (progress.getFinishedAt() == null && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(progress.getStatus()).isEqualTo(ImportProgress.Status.COMPLETED);
+        changeLogPublisher.publishPending();
+
+        List<Long> logged = changeLogRepository.findEventsAfter(user.getId(), 0L, PageRequest.of(0, 100)).stream()
+                .filter(event -> event.entityType() == ChangeLogEntry.EntityType.TRANSACTION)
+                .map(ChangeEvent::entityId)
+                .toList();
+        assertThat(logged).containsExactlyInAnyOrderElementsOf(
+                transactionRepository.findByUser(user).stream().map(Transaction::getId).toList());
+        assertThat(logged).hasSize(3);
+    }
+}
@@ -0,0 +1,91 @@
+package com.finance.manager.service;
+
+import com.finance.manager.IntegrationTest;
+import com.finance.manager.StatementCounter;
+import com.finance.manager.dto.DashboardSnapshot;
+import com.finance.manager.entity.Budget;
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.Transaction;
+import com.finance.manager.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DashboardSnapshotServiceTest extends IntegrationTest {
+
+    // Rollup series, month-to-date totals, active budgets, category counts and recent transactions
+    private static final int MAX_STATEMENTS = 5;
+
+    @Autowired
+    private DashboardSnapshotService dashboardSnapshotService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Test
+    void statementCountDoesNotGrowWithDataOrChartMonths() {
+        // Each user is read once, so the query cache cannot hide a statement
+        int smallStatements = countStatements(createUser("dashboard-small", 1, 1), 6);
+        int largeStatements = countStatements(createUser("dashboard-large", 6, 240), 6);
+        int longChartStatements = countStatements(createUser("dashboard-long-chart", 6, 240), 24);
+
+        assertThat(smallStatements).isBetween(1, MAX_STATEMENTS);
+        assertThat(largeStatements).isEqualTo(smallStatements);
+        assertThat(longChartStatements).isEqualTo(smallStatements);
+    }
+
+    @Test
+    void snapshotAddsUpTheUsersTransactions() {
+        User user = createUser("dashboard-totals", 2, 24);
+
+        DashboardSnapshot snapshot = dashboardSnapshotService.getSnapshot(user, 12);
+
+        assertThat(snapshot.totalExpense()).isEqualByComparingTo("240.00");
+        assertThat(snapshot.totalIncome()).isEqualByComparingTo("480.00");
+        assertThat(snapshot.chartLabels()).hasSize(12);
+        assertThat(snapshot.activeBudgets()).hasSize(2);
+        assertThat(snapshot.expenseCategoryCount()).isEqualTo(2);
+        assertThat(snapshot.incomeCategoryCount()).isEqualTo(1);
+    }
+
+    private int countStatements(User user, int chartMonths) {
+        StatementCounter.reset();
+        dashboardSnapshotService.getSnapshot(user, chartMonths);
+        return StatementCounter.count();
+    }
+
+    // One income category, the given number of expense categories with a budget each, and one
+    // expense and one income a month for the given number of months
+    private User createUser(String username, int expenseCategories, int months) {
+        User user = userService.createUser(username, username + "@example.com", "password", "Dashboard", "Test");
+        Category income = categoryService.createCategory(username + " salary", null, Category.CategoryType.INCOME, user);
+        LocalDate today = LocalDate.now();
+        for (int c = 0; c < expenseCategories; c++) {
+            Category expense = categoryService.createCategory(username + " expense " + c, null, Category.CategoryType.EXPENSE, user);
+            budgetService.createBudget("Budget " + c, new BigDecimal("100.00"), today.withDayOfMonth(1),
+                    today.withDayOfMonth(today.lengthOfMonth()), Budget.BudgetPeriod.MONTHLY, user, expense, null, 80);
+            for (int m = 0; m < months / expenseCategories; m++) {
+                transactionService.createTransaction("Expense", new BigDecimal("10.00"), today.minusMonths(m),
+                        Transaction.TransactionType.EXPENSE, user, expense, null);
+            }
+        }
+        for (int m = 0; m < months; m++) {
+            transactionService.createTransaction("Income", new BigDecimal("20.00"), today.minusMonths(m),
+                    Transaction.TransactionType.INCOME, user, income, null);
+        }
+        return user;
+    }
+}
@@ -0,0 +1,144 @@
+package com.finance.manager.service;
+
+import com.finance.manager.Benchmarks;
+import com.finance.manager.dto.CategoryTypeTotal;
+import com.finance.manager.dto.TransactionFilter;
+import com.finance.manager.dto.TypeTotal;
+import com.finance.manager.dto.YearlyReport;
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.Transaction;
+import com.finance.manager.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtered totals through {@link TransactionService#getTotalsByFilter}, answered by the SQL
+ * aggregate or, with columnar analytics enabled, by scanning the user's columns. The filters
+ * avoid plain date ranges, which both modes hand to the monthly rollups.
+ *
+ * The category breakdown of {@link TransactionService#getTotalsByCategoryAndDateRange} and a
+ * one-year {@link YearlyReportService} report are measured the same way: from the monthly rollups
+ * and the report's grouped SQL, or from the columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionAnalyticsBenchmark {
+
+    private static final LocalDate START = LocalDate.of(2020, 1, 1);
+    private static final String INSERT_SQL =
+            "INSERT INTO transactions (description, amount, date, type, user_id, category_id, notes, created_at, updated_at) " +
+            "VALUES ('Benchmark', ?, ?, ?, ?, ?, NULL, ?, ?)";
+
+    @Param({"false", "true"})
+    public boolean columnar;
+
+    @Param({"10000", "100000"})
+    public int transactions;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private YearlyReportService yearlyReportService;
+    private User user;
+    private TransactionFilter[] filters;
+    private YearMonth[] years;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createTransactions() {
+        context = Benchmarks.startApplication("finance.analytics.columnar.enabled=" + columnar);
+        transactionService = context.getBean(TransactionService.class);
+        yearlyReportService = context.getBean(YearlyReportService.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        CategoryService categoryService = context.getBean(CategoryService.class);
+        user = context.getBean(UserService.class).createUser("benchmark", "benchmark@example.com", "password", "Bench", "Mark");
+        List<Category> categories = new ArrayList<>();
+        for (int c = 0; c < 8; c++) {
+            categories.add(categoryService.createCategory("Benchmark " + c, null, Category.CategoryType.EXPENSE, user));
+        }
+
+        // Inserted directly, as an import would, and the rollups rebuilt for the category breakdown
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(transactions);
+        for (int i = 0; i < transactions; i++) {
+            Transaction.TransactionType type = i % 10 == 0 ? Transaction.TransactionType.INCOME : Transaction.TransactionType.EXPENSE;
+            rows.add(new Object[] {BigDecimal.valueOf(100 + (i * 7919L) % 50000, 2), Date.valueOf(START.plusDays(i % 1500)),
+                    type.name(), user.getId(), categories.get(i % categories.size()).getId(), now, now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        context.getBean(MonthlyRollupService.class).rebuild(user);
+
+        // Four shapes, each over sixteen windows, so consecutive calls never repeat a query
+        filters = new TransactionFilter[64];
+        for (int i = 0; i < 16; i++) {
+            LocalDate from = START.plusMonths(i);
+            Long categoryId = categories.get(i % categories.size()).getId();
+            filters[i * 4] = new TransactionFilter(from, from.plusMonths(12), categoryId, null, null, null, null);
+            filters[i * 4 + 1] = new TransactionFilter(null, null, null, Transaction.TransactionType.EXPENSE,
+                    BigDecimal.valueOf(25 + i), BigDecimal.valueOf(250 + i), null);
+            filters[i * 4 + 2] = new TransactionFilter(from, null, null, Transaction.TransactionType.INCOME, null, null, null);
+            filters[i * 4 + 3] = new TransactionFilter(null, from.plusYears(2), categoryId, null, null, null, null);
+        }
+
+        // First months of sixteen overlapping twelve-month windows
+        years = new YearMonth[16];
+        for (int i = 0; i < years.length; i++) {
+            years[i] = YearMonth.from(START).plusMonths(i * 2L);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<Transaction.TransactionType, TypeTotal> totalsByFilter() {
+        return transactionService.getTotalsByFilter(user, filters[next++ & (filters.length - 1)]);
+    }
+
+    // Windows starting mid-month, so the rollups are topped up from both edge months
+    @Benchmark
+    public List<CategoryTypeTotal> totalsByCategory() {
+        YearMonth first = years[next++ & (years.length - 1)];
+        return transactionService.getTotalsByCategoryAndDateRange(user, first.atDay(10), first.plusMonths(12).atDay(9));
+    }
+
+    @Benchmark
+    public YearlyReport yearlyReport() {
+        int year = START.getYear() + (next++ & 3);
+        return yearlyReportService.generate(user, year, year);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Benchmarks.run(TransactionAnalyticsBenchmark.class);
+    }
+}
@@ -0,0 +1,197 @@
+package com.finance.manager.service;
+
+import com.finance.manager.IntegrationTest;
+import com.finance.manager.dto.CategoryTypeTotal;
+import com.finance.manager.dto.TransactionFilter;
+import com.finance.manager.dto.TypeTotal;
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.Transaction;
+import com.finance.manager.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionAnalyticsServiceTest extends IntegrationTest {
+
+    private static final LocalDate START = LocalDate.of(2023, 1, 1);
+
+    private static final String SUM_BY_MONTH_AND_CATEGORY_SQL =
+            "SELECT YEAR(t.date), MONTH(t.date), t.category_id, t.type, SUM(t.amount) FROM transactions t " +
+            "WHERE t.user_id = ? AND t.date BETWEEN ? AND ? GROUP BY YEAR(t.date), MONTH(t.date), t.category_id, t.type";
+
+    @Autowired
+    private TransactionAnalyticsService transactionAnalyticsService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Columnar analytics are disabled in the test profile, so TransactionService answers from the
+    // database; the columns are loaded once the data is in place and compared against it
+    @Test
+    void columnarTotalsMatchTheDatabase() {
+        User user = createHistory("analytics");
+        Category salary = categoryService.findByUserAndName(user, "analytics salary").orElseThrow();
+        Category food = categoryService.findByUserAndName(user, "analytics food").orElseThrow();
+        Category rent = categoryService.findByUserAndName(user, "analytics rent").orElseThrow();
+
+        LocalDate from = START.plusMonths(2);
+        LocalDate to = START.plusMonths(9).minusDays(1);
+        List<TransactionFilter> filters = List.of(
+                TransactionFilter.none(),
+                TransactionFilter.forDateRange(from, to),
+                new TransactionFilter(from, null, null, null, null, null, null),
+                new TransactionFilter(null, to, food.getId(), null, null, null, null),
+                new TransactionFilter(from, to, rent.getId(), Transaction.TransactionType.EXPENSE, null, null, null),
+                new TransactionFilter(from, to, null, Transaction.TransactionType.INCOME, null, null, null),
+                new TransactionFilter(null, null, null, null, new BigDecimal("10.005"), new BigDecimal("50.50"), null),
+                new TransactionFilter(from, to, food.getId(), null, new BigDecimal("90"), null, null),
+                new TransactionFilter(from, to, salary.getId(), Transaction.TransactionType.EXPENSE, null, null, null),
+                new TransactionFilter(null, null, null, null, new BigDecimal("60"), new BigDecimal("40"), null),
+                new TransactionFilter(null, null, Long.MAX_VALUE, null, null, null, null));
+
+        for (TransactionFilter filter : filters) {
+            assertThat(normalized(transactionAnalyticsService.getTotalsByFilter(user.getId(), filter)))
+                    .as(filter.toString())
+                    .isEqualTo(normalized(transactionService.getTotalsByFilter(user, filter)));
+        }
+    }
+
+    // The category breakdown is compared against the monthly rollups it replaces, the matrix
+    // against a SQL GROUP BY
+    @Test
+    void columnarGroupingsMatchTheDatabase() {
+        User user = createHistory("analytics-groups");
+        List<LocalDate[]> ranges = List.of(
+                new LocalDate[] {START, START.plusDays(399)},
+                new LocalDate[] {START.plusDays(17), START.plusMonths(7).plusDays(3)},
+                new LocalDate[] {START.minusMonths(3), START.plusMonths(2)},
+                new LocalDate[] {START.plusMonths(5).withDayOfMonth(10), START.plusMonths(5).withDayOfMonth(20)},
+                new LocalDate[] {START.plusYears(2), START.plusYears(3)});
+
+        for (LocalDate[] range : ranges) {
+            String description = range[0] + ".." + range[1];
+
+            assertThat(normalized(transactionAnalyticsService.getTotalsByCategory(user.getId(), range[0], range[1])))
+                    .as(description)
+                    .isEqualTo(normalized(transactionService.getTotalsByCategoryAndDateRange(user, range[0], range[1])));
+
+            // Whole months, so the SQL range matches the months the columns are asked for
+            YearMonth first = YearMonth.from(range[0]);
+            YearMonth last = YearMonth.from(range[1]);
+            Map<String, String> sqlCells = new TreeMap<>();
+            jdbcTemplate.query(SUM_BY_MONTH_AND_CATEGORY_SQL, row -> {
+                sqlCells.put(YearMonth.of(row.getInt(1), row.getInt(2)) + " " + row.getLong(3) + " " + row.getString(4),
+                        row.getBigDecimal(5).setScale(2).toString());
+            }, user.getId(), Date.valueOf(first.atDay(1)), Date.valueOf(last.atEndOfMonth()));
+            Map<String, String> columnarCells = new TreeMap<>();
+            transactionAnalyticsService.sumByMonthAndCategory(user.getId(), first, last).forEach((month, byCategory) ->
+                    byCategory.forEach((categoryId, byType) -> {
+                        for (Transaction.TransactionType type : Transaction.TransactionType.values()) {
+                            if (byType[type.ordinal()].signum() != 0) {
+                                columnarCells.put(month + " " + categoryId + " " + type, byType[type.ordinal()].setScale(2).toString());
+                            }
+                        }
+                    }));
+            assertThat(columnarCells).as(description).isEqualTo(sqlCells);
+        }
+    }
+
+    // Loaded before the writes, so every update and delete is applied to the columns in place;
+    // they are only kept current while enabled, and compared with the rollups once disabled again
+    @Test
+    void columnsFollowUpdatesAndDeletes() {
+        User user = createHistory("analytics-writes");
+        Category salary = categoryService.findByUserAndName(user, "analytics-writes salary").orElseThrow();
+        Category food = categoryService.findByUserAndName(user, "analytics-writes food").orElseThrow();
+        Category rent = categoryService.findByUserAndName(user, "analytics-writes rent").orElseThrow();
+        LocalDate from = START.minusMonths(2);
+        LocalDate to = START.plusMonths(15);
+        transactionAnalyticsService.getTotalsByCategory(user.getId(), from, to);
+
+        List<Transaction> transactions = transactionService.findByUser(user);
+        ReflectionTestUtils.setField(transactionAnalyticsService, "enabled", true);
+        try {
+            for (int i = 0; i < transactions.size(); i += 3) {
+                Transaction transaction = transactions.get(i);
+                if (i % 4 == 0) {
+                    transactionService.deleteTransaction(transaction.getId());
+                    continue;
+                }
+                // Moved up to a month either way, and some kept on their day so they swap places with neighbours only by id
+                Transaction changed = new Transaction();
+                changed.setDescription("Changed");
+                changed.setAmount(transaction.getAmount().add(BigDecimal.ONE));
+                changed.setDate(transaction.getDate().plusDays(i % 61 - 30));
+                changed.setType(transaction.getType());
+                changed.setCategory(transaction.getType() == Transaction.TransactionType.INCOME ? salary : i % 2 == 0 ? food : rent);
+                transactionService.updateTransaction(transaction.getId(), changed);
+            }
+            transactionService.createTransaction("Added", new BigDecimal("42.00"), START.plusDays(100),
+                    Transaction.TransactionType.EXPENSE, user, food, null);
+        } finally {
+            ReflectionTestUtils.setField(transactionAnalyticsService, "enabled", false);
+        }
+
+        assertThat(normalized(transactionAnalyticsService.getTotalsByCategory(user.getId(), from, to)))
+                .isEqualTo(normalized(transactionService.getTotalsByCategoryAndDateRange(user, from, to)));
+        assertThat(normalized(transactionAnalyticsService.getTotalsByFilter(user.getId(), TransactionFilter.none())))
+                .isEqualTo(normalized(transactionService.getTotalsByFilter(user, TransactionFilter.none())));
+    }
+
+    // An expense every day for 400 days, in "<username> food" or "<username> rent", and a "<username> salary" every two weeks
+    private User createHistory(String username) {
+        User user = userService.createUser(username, username + "@example.com", "password", "Analytics", "Test");
+        Category salary = categoryService.createCategory(username + " salary", null, Category.CategoryType.INCOME, user);
+        Category food = categoryService.createCategory(username + " food", null, Category.CategoryType.EXPENSE, user);
+        Category rent = categoryService.createCategory(username + " rent", null, Category.CategoryType.EXPENSE, user);
+
+        for (int day = 0; day < 400; day++) {
+            LocalDate date = START.plusDays(day);
+            Category expense = day % 3 == 0 ? rent : food;
+            transactionService.createTransaction("Expense", new BigDecimal(String.format("%d.%02d", day % 97 + 1, day % 100)), date,
+                    Transaction.TransactionType.EXPENSE, user, expense, null);
+            if (day % 14 == 0) {
+                transactionService.createTransaction("Income", new BigDecimal("1234.56"), date,
+                        Transaction.TransactionType.INCOME, user, salary, null);
+            }
+        }
+        return user;
+    }
+
+    private static Map<String, String> normalized(List<CategoryTypeTotal> totals) {
+        Map<String, String> normalized = new TreeMap<>();
+        totals.forEach(total -> normalized.put(total.categoryId() + " " + total.type(), total.total().setScale(2) + " x " + total.count()));
+        return normalized;
+    }
+
+    // Types with no rows are left out, and totals are compared by value rather than scale
+    private static Map<Transaction.TransactionType, String> normalized(Map<Transaction.TransactionType, TypeTotal> totals) {
+        Map<Transaction.TransactionType, String> normalized = new TreeMap<>();
+        totals.forEach((type, total) -> {
+            if (total.count() > 0) {
+                normalized.put(type, total.total().setScale(2) + " x " + total.count());
+            }
+        });
+        return normalized;
+    }
+}
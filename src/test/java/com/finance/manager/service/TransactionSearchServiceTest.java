@@ -0,0 +1,75 @@
+package com.finance.manager.service;
+
+import com.finance.manager.IntegrationTest;
+import com.finance.manager.dto.TransactionFilter;
+import com.finance.manager.dto.TypeTotal;
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.Transaction;
+import com.finance.manager.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionSearchServiceTest extends IntegrationTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserService userService;
+
+    // The list, the latest rows and the totals used to disagree once a keyword met other criteria
+    @Test
+    void keywordMatchesTheSameTransactionsOnEveryPath() {
+        User user = userService.createUser("keyword-paths", "keyword-paths@example.com", "password", "Keyword", "Paths");
+        Category food = categoryService.createCategory("keyword-paths food", null, Category.CategoryType.EXPENSE, user);
+        Category travel = categoryService.createCategory("keyword-paths travel", null, Category.CategoryType.EXPENSE, user);
+        List<String> descriptions = List.of("Coffee beans", "Coffee shop", "Coffeehouse brunch", "Train ticket", "Groceries");
+        for (int day = 0; day < 60; day++) {
+            transactionService.createTransaction(descriptions.get(day % descriptions.size()),
+                    new BigDecimal(day + 1).add(new BigDecimal("0.25")), START.plusDays(day),
+                    Transaction.TransactionType.EXPENSE, user, day % 3 == 0 ? travel : food, null);
+        }
+
+        // A misspelling and a prefix only the index matches, alone and narrowed by every other criterion
+        for (String keyword : List.of("coffee", "cofee", "coffeeh")) {
+            List<TransactionFilter> filters = List.of(
+                    new TransactionFilter(null, null, null, null, null, null, keyword),
+                    new TransactionFilter(START.plusDays(10), START.plusDays(40), food.getId(),
+                            Transaction.TransactionType.EXPENSE, new BigDecimal("5.25"), new BigDecimal("35.25"), keyword));
+            for (TransactionFilter filter : filters) {
+                List<Transaction> listed = transactionService.findByFilter(user, filter, PageRequest.of(0, 1000)).getContent();
+                List<Transaction> latest = transactionService.findLatestByFilter(user, filter, 1000);
+                Map<Transaction.TransactionType, TypeTotal> totals = transactionService.getTotalsByFilter(user, filter);
+
+                assertThat(listed).as("%s", filter).isNotEmpty().allSatisfy(transaction -> {
+                    assertThat(transaction.getDate()).isBetween(
+                            filter.startDate() != null ? filter.startDate() : START, filter.endDate() != null ? filter.endDate() : START.plusDays(60));
+                    if (filter.categoryId() != null) {
+                        assertThat(transaction.getCategory().getId()).isEqualTo(food.getId());
+                        assertThat(transaction.getAmount()).isBetween(filter.minAmount(), filter.maxAmount());
+                    }
+                });
+                assertThat(latest).as("%s", filter).extracting(Transaction::getId)
+                        .containsExactlyInAnyOrderElementsOf(listed.stream().map(Transaction::getId).toList());
+                assertThat(latest).extracting(Transaction::getDate).isSortedAccordingTo((a, b) -> b.compareTo(a));
+                TypeTotal expense = totals.get(Transaction.TransactionType.EXPENSE);
+                assertThat(expense.count()).as("%s", filter).isEqualTo(listed.size());
+                assertThat(expense.total()).isEqualByComparingTo(
+                        listed.stream().map(Transaction::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add));
+            }
+        }
+    }
+}
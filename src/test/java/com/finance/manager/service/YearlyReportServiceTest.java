@@ -0,0 +1,208 @@
+package com.finance.manager.service;
+
+import com.finance.manager.IntegrationTest;
+import com.finance.manager.dto.TransactionItem;
+import com.finance.manager.dto.YearlyReport;
+import com.finance.manager.entity.Budget;
+import com.finance.manager.entity.Category;
+import com.finance.manager.entity.Transaction;
+import com.finance.manager.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class YearlyReportServiceTest extends IntegrationTest {
+
+    private static final int START_YEAR = 2022;
+    private static final int END_YEAR = 2023;
+    private static final LocalDate FROM = LocalDate.of(START_YEAR, 1, 1);
+    private static final LocalDate TO = LocalDate.of(END_YEAR, 12, 31);
+
+    private static final String SUM_BY_CATEGORY_AND_MONTH_SQL =
+            "SELECT t.category_id, t.type, YEAR(t.date), MONTH(t.date), SUM(t.amount) FROM transactions t " +
+            "WHERE t.user_id = ? AND t.date BETWEEN ? AND ? GROUP BY t.category_id, t.type, YEAR(t.date), MONTH(t.date)";
+
+    private static final String SUM_BY_MONTH_SQL =
+            "SELECT t.type, YEAR(t.date), MONTH(t.date), SUM(t.amount) FROM transactions t " +
+            "WHERE t.user_id = ? AND t.date BETWEEN ? AND ? GROUP BY t.type, YEAR(t.date), MONTH(t.date)";
+
+    private static final String TOP_EXPENSES_SQL =
+            "SELECT t.id FROM transactions t WHERE t.user_id = ? AND t.type = 'EXPENSE' AND t.date BETWEEN ? AND ? " +
+            "ORDER BY t.amount DESC, t.id LIMIT 10";
+
+    private static final String BUDGET_SPENT_SQL =
+            "SELECT COALESCE(SUM(t.amount), 0) FROM transactions t " +
+            "WHERE t.user_id = ? AND t.category_id = ? AND t.type = 'EXPENSE' AND t.date BETWEEN ? AND ?";
+
+    private static final String OVERLAPPING_BUDGETS_SQL =
+            "SELECT b.id FROM budgets b WHERE b.user_id = ? AND b.start_date <= ? AND b.end_date >= ? ORDER BY b.id";
+
+    @Autowired
+    private YearlyReportService yearlyReportService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ForkJoinPool reportPool;
+
+    @Autowired
+    private TransactionAnalyticsService transactionAnalyticsService;
+
+    // Each pool size forks and merges the month partitions differently; the report must not change
+    @Test
+    void reportMatchesTheSqlAggregatesAtEveryParallelism() {
+        User user = createHistory("yearly-report");
+        for (int parallelism : new int[] {1, 4}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            ReflectionTestUtils.setField(yearlyReportService, "reportPool", pool);
+            try {
+                assertMatchesSql(user, yearlyReportService.generate(user, START_YEAR, END_YEAR), "parallelism " + parallelism);
+            } finally {
+                ReflectionTestUtils.setField(yearlyReportService, "reportPool", reportPool);
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void columnarReportMatchesTheSqlAggregates() {
+        User user = createHistory("yearly-report-columnar");
+        ReflectionTestUtils.setField(transactionAnalyticsService, "enabled", true);
+        try {
+            assertMatchesSql(user, yearlyReportService.generate(user, START_YEAR, END_YEAR), "columnar");
+        } finally {
+            ReflectionTestUtils.setField(transactionAnalyticsService, "enabled", false);
+        }
+    }
+
+    private void assertMatchesSql(User user, YearlyReport report, String description) {
+        assertThat(report.months()).as(description).hasSize(24).startsWith(YearMonth.from(FROM)).endsWith(YearMonth.from(TO));
+
+        Map<String, String> sqlCells = new TreeMap<>();
+        jdbcTemplate.query(SUM_BY_CATEGORY_AND_MONTH_SQL, row -> {
+            sqlCells.put(row.getLong(1) + " " + row.getString(2) + " " + YearMonth.of(row.getInt(3), row.getInt(4)),
+                    money(row.getBigDecimal(5)));
+        }, user.getId(), Date.valueOf(FROM), Date.valueOf(TO));
+        Map<String, String> reportCells = new TreeMap<>();
+        Map<String, String> sqlCategoryTotals = new TreeMap<>();
+        Map<String, String> reportCategoryTotals = new TreeMap<>();
+        for (YearlyReport.CategoryRow row : concat(report.expenseRows(), report.incomeSources())) {
+            String key = row.categoryId() + " " + row.type();
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = 0; i < report.months().size(); i++) {
+                BigDecimal amount = row.monthly().get(i);
+                if (amount.signum() != 0) {
+                    reportCells.put(key + " " + report.months().get(i), money(amount));
+                }
+                total = total.add(amount);
+            }
+            assertThat(row.total()).as("%s %s", description, key).isEqualByComparingTo(total);
+            reportCategoryTotals.put(key, money(row.total()));
+        }
+        sqlCells.forEach((cell, sum) -> sqlCategoryTotals.merge(cell.substring(0, cell.lastIndexOf(' ')), sum,
+                (a, b) -> money(new BigDecimal(a).add(new BigDecimal(b)))));
+        assertThat(reportCells).as(description).isEqualTo(sqlCells);
+        assertThat(reportCategoryTotals).as(description).isEqualTo(sqlCategoryTotals);
+
+        Map<String, String> sqlMonths = new TreeMap<>();
+        jdbcTemplate.query(SUM_BY_MONTH_SQL, row -> {
+            sqlMonths.put(row.getString(1) + " " + YearMonth.of(row.getInt(2), row.getInt(3)), money(row.getBigDecimal(4)));
+        }, user.getId(), Date.valueOf(FROM), Date.valueOf(TO));
+        Map<String, String> reportMonths = new TreeMap<>();
+        for (int i = 0; i < report.months().size(); i++) {
+            reportMonths.put(Transaction.TransactionType.INCOME + " " + report.months().get(i), money(report.monthlyIncome().get(i)));
+            reportMonths.put(Transaction.TransactionType.EXPENSE + " " + report.months().get(i), money(report.monthlyExpense().get(i)));
+        }
+        reportMonths.values().removeIf(sum -> new BigDecimal(sum).signum() == 0);
+        assertThat(reportMonths).as(description).isEqualTo(sqlMonths);
+
+        List<Long> sqlTopExpenses = jdbcTemplate.queryForList(TOP_EXPENSES_SQL, Long.class,
+                user.getId(), Date.valueOf(FROM), Date.valueOf(TO));
+        assertThat(report.topExpenses()).as(description).extracting(TransactionItem::id).isEqualTo(sqlTopExpenses);
+
+        List<Long> sqlBudgets = jdbcTemplate.queryForList(OVERLAPPING_BUDGETS_SQL, Long.class,
+                user.getId(), Date.valueOf(TO), Date.valueOf(FROM));
+        // Across start, inside, across end, around and deactivated
+        assertThat(sqlBudgets).hasSize(5);
+        assertThat(report.budgets()).as(description).extracting(YearlyReport.BudgetAdherence::budgetId)
+                .containsExactlyInAnyOrderElementsOf(sqlBudgets);
+        for (YearlyReport.BudgetAdherence budget : report.budgets()) {
+            Long categoryId = jdbcTemplate.queryForObject("SELECT b.category_id FROM budgets b WHERE b.id = ?", Long.class, budget.budgetId());
+            BigDecimal spent = jdbcTemplate.queryForObject(BUDGET_SPENT_SQL, BigDecimal.class, user.getId(), categoryId,
+                    Date.valueOf(budget.startDate()), Date.valueOf(budget.endDate()));
+            assertThat(money(budget.spent())).as("%s %s", description, budget.name()).isEqualTo(money(spent));
+        }
+    }
+
+    // Three and a half years of expenses in two categories with a monthly salary, and budgets inside,
+    // across either edge of and around the 2022-2023 report range, one of them deactivated
+    private User createHistory(String username) {
+        User user = userService.createUser(username, username + "@example.com", "password", "Yearly", "Report");
+        Category salary = categoryService.createCategory(username + " salary", null, Category.CategoryType.INCOME, user);
+        Category food = categoryService.createCategory(username + " food", null, Category.CategoryType.EXPENSE, user);
+        Category rent = categoryService.createCategory(username + " rent", null, Category.CategoryType.EXPENSE, user);
+        categoryService.createCategory(username + " unused", null, Category.CategoryType.EXPENSE, user);
+
+        LocalDate first = LocalDate.of(2021, 7, 1);
+        for (int day = 0; day < 1280; day += 2) {
+            LocalDate date = first.plusDays(day);
+            // Every seventh amount repeats, so the top expenses also tie on amount
+            String amount = day % 7 == 0 ? "150.00" : String.format("%d.%02d", day % 89 + 1, day % 100);
+            transactionService.createTransaction("Expense", new BigDecimal(amount), date,
+                    Transaction.TransactionType.EXPENSE, user, day % 3 == 0 ? rent : food, null);
+            if (date.getDayOfMonth() <= 2) {
+                transactionService.createTransaction("Salary", new BigDecimal("2345.67"), date,
+                        Transaction.TransactionType.INCOME, user, salary, null);
+            }
+        }
+
+        createBudget(user, food, "Before", LocalDate.of(2021, 8, 1), LocalDate.of(2021, 10, 31));
+        createBudget(user, food, "Across start", LocalDate.of(2021, 11, 15), LocalDate.of(2022, 2, 10));
+        createBudget(user, rent, "Inside", LocalDate.of(2022, 6, 1), LocalDate.of(2022, 6, 30));
+        createBudget(user, rent, "Across end", LocalDate.of(2023, 12, 5), LocalDate.of(2024, 3, 20));
+        createBudget(user, food, "Around", LocalDate.of(2021, 12, 1), LocalDate.of(2024, 1, 31));
+        createBudget(user, food, "After", LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29));
+        Budget deactivated = createBudget(user, food, "Deactivated", LocalDate.of(2023, 3, 1), LocalDate.of(2023, 5, 31));
+        budgetService.deactivateBudget(deactivated.getId());
+        return user;
+    }
+
+    private Budget createBudget(User user, Category category, String name, LocalDate start, LocalDate end) {
+        return budgetService.createBudget(name, new BigDecimal("500.00"), start, end, Budget.BudgetPeriod.CUSTOM,
+                user, category, null, 80);
+    }
+
+    private static List<YearlyReport.CategoryRow> concat(List<YearlyReport.CategoryRow> first, List<YearlyReport.CategoryRow> second) {
+        return Stream.concat(first.stream(), second.stream()).toList();
+    }
+
+    private static String money(BigDecimal amount) {
+        return amount.setScale(2).toString();
+    }
+}